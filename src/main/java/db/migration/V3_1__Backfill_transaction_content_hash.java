@@ -0,0 +1,85 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Hashes the transactions stored before the content_hash column existed, so imports detect duplicates of them too.
+ * The hash is computed in Java with a frozen copy of {@code Transaction#contentHash} as it was when the column
+ * was added, so later changes to the entity never change what this migration writes.
+ */
+public class V3_1__Backfill_transaction_content_hash extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (PreparedStatement select = connection.prepareStatement("""
+                select transaction_id, type, amount, date, category, name, quantity, unit, budget_id, user_id
+                from transactions where content_hash is null
+                """);
+             PreparedStatement update = connection.prepareStatement(
+                     "update transactions set content_hash = ? where transaction_id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    update.setString(1, contentHash(
+                            rows.getString("type"),
+                            getFloat(rows, "amount"),
+                            rows.getObject("date", LocalDateTime.class),
+                            rows.getString("category"),
+                            rows.getString("name"),
+                            getFloat(rows, "quantity"),
+                            rows.getString("unit"),
+                            getInteger(rows, "budget_id"),
+                            getInteger(rows, "user_id")));
+                    update.setInt(2, rows.getInt("transaction_id"));
+                    update.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    // Enum names and nulls print the same as the entity's values did, so the hashes match the ones it computes
+    private static String contentHash(String type, Float amount, LocalDateTime date, String category, String name,
+                                      Float quantity, String unit, Integer budgetId, Integer userId) {
+        String content = String.join("|", String.valueOf(type), String.valueOf(amount), String.valueOf(date),
+                String.valueOf(category), String.valueOf(name), String.valueOf(quantity), String.valueOf(unit),
+                String.valueOf(budgetId), String.valueOf(userId));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static Float getFloat(ResultSet rows, String column) throws SQLException {
+        float value = rows.getFloat(column);
+        return rows.wasNull() ? null : value;
+    }
+
+    private static Integer getInteger(ResultSet rows, String column) throws SQLException {
+        int value = rows.getInt(column);
+        return rows.wasNull() ? null : value;
+    }
+}
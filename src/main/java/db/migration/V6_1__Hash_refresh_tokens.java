@@ -0,0 +1,87 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Replaces each stored refresh token with its SHA-256 and copies the email and roles of its user onto it,
+ * so signed in users keep their sessions. Tokens without a user cannot be refreshed and are dropped.
+ * The hash is a frozen copy of {@code TokenHashes#sha256}, so later changes there never change this migration.
+ */
+public class V6_1__Hash_refresh_tokens extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (PreparedStatement delete = connection.prepareStatement(
+                "delete from refresh_token where token is null or user_id is null "
+                        + "or user_id not in (select user_id from users)")) {
+            delete.executeUpdate();
+        }
+        // One row per role, ordered by token, so the roles of a token are consecutive
+        try (PreparedStatement select = connection.prepareStatement("""
+                select r.id, r.token, u.email, ro.name as role
+                from refresh_token r
+                join users u on u.user_id = r.user_id
+                left join users_roles ur on ur.user_id = u.user_id
+                left join roles ro on ro.role_id = ur.role_id
+                order by r.id, ro.name
+                """);
+             PreparedStatement update = connection.prepareStatement(
+                     "update refresh_token set token_hash = ?, email = ?, roles = ? where id = ?");
+             ResultSet rows = select.executeQuery()) {
+            Integer id = null;
+            String token = null;
+            String email = null;
+            List<String> roles = new ArrayList<>();
+            while (rows.next()) {
+                int rowId = rows.getInt("id");
+                if (id != null && id != rowId) {
+                    addUpdate(update, id, token, email, roles);
+                    roles.clear();
+                }
+                id = rowId;
+                token = rows.getString("token");
+                email = rows.getString("email");
+                String role = rows.getString("role");
+                if (role != null) {
+                    roles.add(role);
+                }
+            }
+            if (id != null) {
+                addUpdate(update, id, token, email, roles);
+            }
+            update.executeBatch();
+        }
+    }
+
+    // Same format as RefreshTokenService#issue, role names separated by spaces
+    private static void addUpdate(PreparedStatement update, Integer id, String token, String email,
+                                  List<String> roles) throws SQLException {
+        update.setString(1, sha256(token));
+        update.setString(2, email);
+        update.setString(3, String.join(" ", roles));
+        update.setInt(4, id);
+        update.addBatch();
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+}
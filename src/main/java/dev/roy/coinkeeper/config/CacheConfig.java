@@ -0,0 +1,51 @@
+package dev.roy.coinkeeper.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String BUDGETS = "budgets";
+    public static final String BUDGET_ROSTERS = "budgetRosters";
+    public static final String BUDGET_ACCESS = "budgetAccess";
+    public static final String REFRESH_TOKENS = "refreshTokens";
+
+    @Value("${cache.budgets.maximum-size}")
+    private long maximumSize;
+    @Value("${cache.budgets.expire-after-write}")
+    private Duration expireAfterWrite;
+    @Value("${cache.refresh-tokens.maximum-size}")
+    private long refreshTokensMaximumSize;
+    @Value("${cache.refresh-tokens.expire-after-write}")
+    private Duration refreshTokensExpireAfterWrite;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        cacheManager.setCacheNames(List.of(BUDGETS, BUDGET_ROSTERS, BUDGET_ACCESS));
+        // Bounds how long a token revoked on another instance can still be refreshed here
+        cacheManager.registerCustomCache(REFRESH_TOKENS, Caffeine.newBuilder()
+                .maximumSize(refreshTokensMaximumSize)
+                .expireAfterWrite(refreshTokensExpireAfterWrite)
+                .recordStats()
+                .build());
+        cacheManager.setAllowNullValues(false);
+        // Evictions are deferred until the surrounding transaction commits, so a concurrent read cannot cache stale data
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,64 @@
+package dev.roy.coinkeeper.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets a read opt out of the replica, and tells whether the current transaction is reading from it.
+ * Reads that fill a cache use both: they ask for the primary, and skip caching when they joined a transaction
+ * that was already routed to the replica, so a lagging replica never leaves stale entries behind.
+ * Both are no-ops when the replica is not configured.
+ */
+public final class ReplicaReads {
+
+    /**
+     * For {@code @Cacheable(unless = ...)}, leaves the result uncached when it may have come from the replica.
+     */
+    public static final String SERVED_BY_REPLICA = "T(dev.roy.coinkeeper.config.ReplicaReads).inReplicaTransaction()";
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUESTED = new ThreadLocal<>();
+    private static final Object REPLICA_TRANSACTION = new Object();
+
+    private ReplicaReads() {
+    }
+
+    /**
+     * Runs a read whose transaction has not touched the database yet against the primary, even when read-only.
+     */
+    public static <T> T fromPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_REQUESTED.get();
+        PRIMARY_REQUESTED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUESTED.remove();
+            } else {
+                PRIMARY_REQUESTED.set(previous);
+            }
+        }
+    }
+
+    public static boolean inReplicaTransaction() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_TRANSACTION);
+    }
+
+    static boolean primaryRequested() {
+        return PRIMARY_REQUESTED.get() != null;
+    }
+
+    static void markReplicaTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || inReplicaTransaction()) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_TRANSACTION, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_TRANSACTION);
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package dev.roy.coinkeeper.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to the replica unless the current client wrote recently,
+ * in which case it keeps reading from the primary until the replica has caught up, or the read asked for the
+ * primary through {@link ReplicaReads#fromPrimary}.
+ */
+@RequiredArgsConstructor
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReadYourWritesGuard readYourWritesGuard;
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String client = currentClient();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (client != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWritesGuard.recordWrite(client);
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (ReplicaReads.primaryRequested() || readYourWritesGuard.wroteRecently(client)) {
+            return PRIMARY;
+        }
+        ReplicaReads.markReplicaTransaction();
+        return REPLICA;
+    }
+
+    private static String currentClient() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || auth instanceof AnonymousAuthenticationToken ? null : auth.getName();
+    }
+}
@@ -1,7 +1,9 @@
 package dev.roy.coinkeeper.controller;
 
 import dev.roy.coinkeeper.dto.*;
+import dev.roy.coinkeeper.security.ratelimit.AuthRateLimiter;
 import dev.roy.coinkeeper.security.service.AuthenticationService;
+import dev.roy.coinkeeper.security.service.RefreshTokenService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -25,9 +27,11 @@ public class AuthController {
     private static final String REFRESH_TOKEN = "refreshToken";
 
     private final AuthenticationService authenticationService;
+    private final AuthRateLimiter rateLimiter;
 
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse> register(@Valid @RequestBody UserRequestDTO dto) {
+    public ResponseEntity<ApiResponse> register(@Valid @RequestBody UserRequestDTO dto, HttpServletRequest request) {
+        rateLimiter.check(AuthRateLimiter.REGISTER, dto.email(), request.getRemoteAddr());
         log.info("Registering of new user started");
         UserResponseDTO userResponseDTO = authenticationService.register(dto);
         log.info("New user successfully registered");
@@ -37,7 +41,9 @@ public class AuthController {
     }
 
     @PostMapping("/verifyOtp")
-    public ResponseEntity<ApiResponse> verifyOTP(@Valid @RequestBody VerifyOTPRequestDTO dto) {
+    public ResponseEntity<ApiResponse> verifyOTP(@Valid @RequestBody VerifyOTPRequestDTO dto,
+                                                 HttpServletRequest request) {
+        rateLimiter.check(AuthRateLimiter.VERIFY_OTP, dto.userId().toString(), request.getRemoteAddr());
         authenticationService.verifyOTP(dto);
         return ResponseEntity
                 .status(HttpStatus.OK)
@@ -45,7 +51,9 @@ public class AuthController {
     }
 
     @PostMapping("/resendOtp")
-    public ResponseEntity<ApiResponse> resendOTP(@Valid @RequestBody ResendOTPRequestDTO dto) {
+    public ResponseEntity<ApiResponse> resendOTP(@Valid @RequestBody ResendOTPRequestDTO dto,
+                                                 HttpServletRequest request) {
+        rateLimiter.check(AuthRateLimiter.RESEND_OTP, dto.userId().toString(), request.getRemoteAddr());
         String result = authenticationService.resendOTP(dto);
         return ResponseEntity
                 .status(HttpStatus.OK)
@@ -53,13 +61,15 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse> login(@Valid @RequestBody LoginRequestDTO dto, HttpServletResponse response) {
+    public ResponseEntity<ApiResponse> login(@Valid @RequestBody LoginRequestDTO dto, HttpServletRequest request,
+                                             HttpServletResponse response) {
+        rateLimiter.check(AuthRateLimiter.LOGIN, dto.email(), request.getRemoteAddr());
         log.info("Logging in user: {}", dto.email());
         LoginResponseDTO loginResponseDTO = authenticationService.login(dto);
-        Cookie cookie = new Cookie(REFRESH_TOKEN, loginResponseDTO.refreshToken().getToken());
+        Cookie cookie = new Cookie(REFRESH_TOKEN, loginResponseDTO.refreshToken());
         cookie.setSecure(true);
         cookie.setHttpOnly(true);
-        cookie.setMaxAge(60 * 60);
+        cookie.setMaxAge((int) RefreshTokenService.LIFETIME.toSeconds());
         cookie.setAttribute("SameSite", "None");
         response.addCookie(cookie);
         HashMap<String, Object> data = new HashMap<>();
@@ -119,14 +129,18 @@ public class AuthController {
     }
 
     @PostMapping("/forgotPassword")
-    public ResponseEntity<ApiResponse> forgetPassword(@Valid @RequestBody ForgetPasswordRequestDTO dto) {
+    public ResponseEntity<ApiResponse> forgetPassword(@Valid @RequestBody ForgetPasswordRequestDTO dto,
+                                                      HttpServletRequest request) {
+        rateLimiter.check(AuthRateLimiter.FORGOT_PASSWORD, dto.email(), request.getRemoteAddr());
         authenticationService.verifyEmailAndSendOTP(dto);
         return ResponseEntity.status(HttpStatus.OK)
                 .body(new ApiResponse(true, 200, "OTP sent to reset password", null));
     }
 
     @PostMapping("/resetPassword")
-    public ResponseEntity<ApiResponse> resetPassword(@Valid @RequestBody ResetPasswordRequestDTO dto) {
+    public ResponseEntity<ApiResponse> resetPassword(@Valid @RequestBody ResetPasswordRequestDTO dto,
+                                                     HttpServletRequest request) {
+        rateLimiter.check(AuthRateLimiter.FORGOT_PASSWORD, dto.email(), request.getRemoteAddr());
         authenticationService.resetPassword(dto);
         return ResponseEntity.status(HttpStatus.OK)
                 .body(new ApiResponse(true, 200, "Reset password successful", null));
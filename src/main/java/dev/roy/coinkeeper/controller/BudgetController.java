@@ -3,6 +3,7 @@ package dev.roy.coinkeeper.controller;
 import dev.roy.coinkeeper.dto.ApiResponse;
 import dev.roy.coinkeeper.dto.BudgetRequestDTO;
 import dev.roy.coinkeeper.dto.BudgetResponseDTO;
+import dev.roy.coinkeeper.dto.CursorPage;
 import dev.roy.coinkeeper.service.BudgetService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @RequiredArgsConstructor
@@ -21,6 +23,7 @@ public class BudgetController {
     private final BudgetService budgetService;
 
     @PostMapping
+    @PreAuthorize("@budgetAccessService.isSelf(authentication, #dto.userId())")
     public ResponseEntity<ApiResponse> addBudget(@Valid @RequestBody BudgetRequestDTO dto) {
         log.info("Adding new budget for user started");
         BudgetResponseDTO budgetResponseDTO = budgetService.addBudget(dto);
@@ -30,6 +33,7 @@ public class BudgetController {
     }
 
     @GetMapping("{budgetId}")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
     public ResponseEntity<ApiResponse> findBudgetById(@PathVariable Integer budgetId) {
         log.info("Searching budget for user started");
         BudgetResponseDTO budgetResponseDTO = budgetService.findBudgetById(budgetId);
@@ -39,6 +43,7 @@ public class BudgetController {
     }
 
     @DeleteMapping("{budgetId}")
+    @PreAuthorize("@budgetAccessService.isBudgetOwner(authentication, #budgetId)")
     public ResponseEntity<ApiResponse> deleteBudgetById(@PathVariable Integer budgetId) {
         log.info("Deletion of budget started");
         budgetService.deleteBudgetById(budgetId);
@@ -48,6 +53,7 @@ public class BudgetController {
     }
 
     @PutMapping("{budgetId}")
+    @PreAuthorize("@budgetAccessService.isBudgetOwner(authentication, #budgetId)")
     public ResponseEntity<ApiResponse> updateBudgetById(@PathVariable Integer budgetId,
                                                         @RequestBody BudgetRequestDTO dto) {
         log.info("Updating budget started");
@@ -58,6 +64,7 @@ public class BudgetController {
     }
 
     @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse> findAllBudgets(@RequestParam(required = false, defaultValue = "0") int page,
                                                       @RequestParam(required = false, defaultValue = "5") int size) {
         log.info("Fetching all budgets started");
@@ -68,6 +75,7 @@ public class BudgetController {
     }
 
     @GetMapping("/users/{userId}")
+    @PreAuthorize("@budgetAccessService.isSelf(authentication, #userId)")
     public ResponseEntity<ApiResponse> findAllBudgetsByUser(@PathVariable Integer userId,
                                                             @RequestParam(required = false, defaultValue = "0") int page,
                                                             @RequestParam(required = false, defaultValue = "5") int size,
@@ -78,4 +86,16 @@ public class BudgetController {
         return ResponseEntity.status(HttpStatus.OK)
                 .body(new ApiResponse(true, 200, "Budgets fetched", allBudgets));
     }
+
+    @GetMapping("/users/{userId}/visible")
+    @PreAuthorize("@budgetAccessService.isSelf(authentication, #userId)")
+    public ResponseEntity<ApiResponse> findBudgetsVisibleToUser(@PathVariable Integer userId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false, defaultValue = "5") int size) {
+        log.info("Fetching budgets visible to User started");
+        CursorPage<BudgetResponseDTO> budgets = budgetService.scrollBudgetsVisibleToUser(userId, cursor, size);
+        log.info("Fetching budgets visible to User completed");
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(new ApiResponse(true, 200, "Budgets fetched", budgets));
+    }
 }
@@ -0,0 +1,36 @@
+package dev.roy.coinkeeper.controller;
+
+import dev.roy.coinkeeper.security.util.JwtSigningKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the public JWT verification keys as a standard JWK Set, so other services can verify our tokens.
+ * The body is not wrapped in an {@code ApiResponse} because JWKS clients expect the RFC 7517 format.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class JwksController {
+
+    public static final String JWKS_PATH = "/.well-known/jwks.json";
+
+    private final JwtSigningKeys keys;
+
+    @GetMapping(JWKS_PATH)
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        log.info("Publishing {} JWT verification keys", keys.getVerificationKeys().getKeys().size());
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(keys.getVerificationKeys().toJSONObject());
+    }
+}
@@ -1,18 +1,34 @@
 package dev.roy.coinkeeper.controller;
 
 import dev.roy.coinkeeper.dto.ApiResponse;
+import dev.roy.coinkeeper.dto.BucketGranularity;
+import dev.roy.coinkeeper.dto.BulkImportRowResult;
+import dev.roy.coinkeeper.dto.CategorySpend;
+import dev.roy.coinkeeper.dto.CursorPage;
+import dev.roy.coinkeeper.dto.ExportFormat;
+import dev.roy.coinkeeper.dto.SpendingBucket;
 import dev.roy.coinkeeper.dto.TransactionRequestDTO;
 import dev.roy.coinkeeper.dto.TransactionResponseDTO;
 import dev.roy.coinkeeper.dto.budgetdetails.BudgetDetailsResponseDTO;
+import dev.roy.coinkeeper.service.TransactionExportService;
 import dev.roy.coinkeeper.service.TransactionService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
@@ -22,13 +38,16 @@ import java.util.Map;
 public class TransactionController {
 
     private static final String TRANSACTION_ADDED = "Transaction added";
+    private static final String TRANSACTIONS_IMPORTED = "Transactions imported";
     private static final String TRANSACTION_FOUND = "Transaction found";
     private static final String TRANSACTION_DELETED = "Transaction deleted";
     private static final String TRANSACTION_UPDATED = "transaction updated";
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
 
     @PostMapping
+    @PreAuthorize("@budgetAccessService.canPostTransaction(authentication, #dto)")
     public ResponseEntity<ApiResponse> addTransaction(@Valid @RequestBody TransactionRequestDTO dto) {
         log.info("Adding new transaction for budget started");
         TransactionResponseDTO transactionResponseDTO = transactionService.addTransaction(dto);
@@ -37,7 +56,18 @@ public class TransactionController {
                 .body(new ApiResponse(true, 201, TRANSACTION_ADDED, transactionResponseDTO));
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("@budgetAccessService.canPostTransactions(authentication, #dtos)")
+    public ResponseEntity<ApiResponse> importTransactions(@RequestBody List<@NotNull TransactionRequestDTO> dtos) {
+        log.info("Bulk import of transactions started");
+        List<BulkImportRowResult> results = transactionService.importTransactions(dtos);
+        log.info("Bulk import of transactions completed");
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse(true, 201, TRANSACTIONS_IMPORTED, results));
+    }
+
     @GetMapping("{transactionId}")
+    @PreAuthorize("@budgetAccessService.canAccessTransaction(authentication, #transactionId)")
     public ResponseEntity<ApiResponse> findTransactionById(@PathVariable Integer transactionId) {
         log.info("Searching for transaction started");
         TransactionResponseDTO transactionResponseDTO = transactionService.findTransactionById(transactionId);
@@ -47,6 +77,7 @@ public class TransactionController {
     }
 
     @DeleteMapping("{transactionId}")
+    @PreAuthorize("@budgetAccessService.canAccessTransaction(authentication, #transactionId)")
     public ResponseEntity<ApiResponse> deleteTransactionById(@PathVariable Integer transactionId) {
         log.info("Deletion of transaction started");
         transactionService.deleteTransactionById(transactionId);
@@ -56,6 +87,7 @@ public class TransactionController {
     }
 
     @PutMapping("{transactionId}")
+    @PreAuthorize("@budgetAccessService.canAccessTransaction(authentication, #transactionId)")
     public ResponseEntity<ApiResponse> updateTransactionById(@PathVariable Integer transactionId,
                                                              @RequestBody TransactionRequestDTO dto) {
         log.info("Updating transaction started");
@@ -66,6 +98,7 @@ public class TransactionController {
     }
 
     @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse> findAllTransaction(@RequestParam(required = false, defaultValue = "0") int page,
                                                           @RequestParam(required = false, defaultValue = "5") int size) {
         log.info("Fetching all transactions started");
@@ -76,9 +109,19 @@ public class TransactionController {
     }
 
     @GetMapping("/budgets/{budgetId}")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
     public ResponseEntity<ApiResponse> findAllTransactionByBudget(@PathVariable Integer budgetId,
                                                                   @RequestParam(required = false, defaultValue = "0") int page,
-                                                                  @RequestParam(required = false, defaultValue = "5") int size) {
+                                                                  @RequestParam(required = false, defaultValue = "5") int size,
+                                                                  @RequestParam(required = false, defaultValue = "false") boolean keyset,
+                                                                  @RequestParam(required = false) String cursor) {
+        if (keyset || cursor != null) {
+            log.info("Scrolling transactions by budget started");
+            CursorPage<TransactionResponseDTO> transactions = transactionService.scrollTransactionsByBudget(budgetId, cursor, size);
+            log.info("Scrolling transactions by budget completed");
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(new ApiResponse(true, 200, TRANSACTION_FOUND, transactions));
+        }
         log.info("Fetching all transactions by budget started");
         Page<TransactionResponseDTO> transactionResponseDTO = transactionService.findAllTransactionsByBudget(budgetId, page, size);
         log.info("Fetching all transactions  by budget completed");
@@ -86,7 +129,24 @@ public class TransactionController {
                 .body(new ApiResponse(true, 200, TRANSACTION_FOUND, transactionResponseDTO));
     }
 
+    @GetMapping("/budgets/{budgetId}/export")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsByBudget(@PathVariable Integer budgetId,
+                                                                            @RequestParam(required = false, defaultValue = "CSV") ExportFormat format) {
+        log.info("Exporting transactions by budget as {}", format);
+        StreamingResponseBody body = transactionExportService.exportTransactionsByBudget(budgetId, format);
+        MediaType mediaType = format == ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        String fileName = "budget-" + budgetId + "-transactions." + format.name().toLowerCase();
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     @GetMapping("/total/budgets/{budgetId}")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
     public ResponseEntity<ApiResponse> findTotalIncomeAndExpenseByBudget(@PathVariable Integer budgetId) {
         log.info("Fetching total income and expense by budget started");
         Map<String, Float> totalIncomeAndExpenseByBudget = transactionService.getTotalIncomeAndExpenseByBudget(budgetId);
@@ -96,6 +156,7 @@ public class TransactionController {
     }
 
     @GetMapping("/summary/budgets/{budgetId}")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
     public ResponseEntity<ApiResponse> getTransactionSummaryByBudget(@PathVariable Integer budgetId) {
         log.info("Fetching transaction summary by budget started");
         BudgetDetailsResponseDTO summaryByBudget = transactionService.getTransactionSummaryByBudget(budgetId);
@@ -104,10 +165,62 @@ public class TransactionController {
                 .body(new ApiResponse(true, 200, TRANSACTION_FOUND, summaryByBudget));
     }
 
+    @GetMapping("/analytics/budgets/{budgetId}")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
+    public ResponseEntity<ApiResponse> getSpendingSeriesByBudget(@PathVariable Integer budgetId,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                 @RequestParam(required = false, defaultValue = "MONTH") BucketGranularity granularity,
+                                                                 @RequestParam(required = false, defaultValue = "false") boolean byCategory) {
+        log.info("Fetching spending series by budget started");
+        List<SpendingBucket> series = transactionService.getSpendingSeries(budgetId, from, to, granularity, byCategory);
+        log.info("Fetching spending series by budget ended");
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(new ApiResponse(true, 200, TRANSACTION_FOUND, series));
+    }
+
+    @GetMapping("/categories/budgets/{budgetId}")
+    @PreAuthorize("@budgetAccessService.canAccessBudget(authentication, #budgetId)")
+    public ResponseEntity<ApiResponse> getTopCategoriesByBudget(@PathVariable Integer budgetId,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(required = false, defaultValue = "5") int limit,
+                                                                @RequestParam(required = false, defaultValue = "false") boolean approximate) {
+        log.info("Fetching top categories by budget started");
+        List<CategorySpend> categories = transactionService.getTopCategoriesByBudget(budgetId, from, to, limit, approximate);
+        log.info("Fetching top categories by budget ended");
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(new ApiResponse(true, 200, TRANSACTION_FOUND, categories));
+    }
+
+    @GetMapping("/categories/users/{userId}")
+    @PreAuthorize("@budgetAccessService.isSelf(authentication, #userId)")
+    public ResponseEntity<ApiResponse> getTopCategoriesByUser(@PathVariable Integer userId,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false, defaultValue = "5") int limit,
+                                                              @RequestParam(required = false, defaultValue = "false") boolean approximate) {
+        log.info("Fetching top categories by user started");
+        List<CategorySpend> categories = transactionService.getTopCategoriesByUser(userId, from, to, limit, approximate);
+        log.info("Fetching top categories by user ended");
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(new ApiResponse(true, 200, TRANSACTION_FOUND, categories));
+    }
+
     @GetMapping("/users/{userId}")
+    @PreAuthorize("@budgetAccessService.isSelf(authentication, #userId)")
     public ResponseEntity<ApiResponse> findAllTransactionByUser(@PathVariable Integer userId,
                                                                   @RequestParam(required = false, defaultValue = "0") int page,
-                                                                  @RequestParam(required = false, defaultValue = "5") int size) {
+                                                                  @RequestParam(required = false, defaultValue = "5") int size,
+                                                                  @RequestParam(required = false, defaultValue = "false") boolean keyset,
+                                                                  @RequestParam(required = false) String cursor) {
+        if (keyset || cursor != null) {
+            log.info("Scrolling transactions by user started");
+            CursorPage<TransactionResponseDTO> transactions = transactionService.scrollTransactionsByUser(userId, cursor, size);
+            log.info("Scrolling transactions by user completed");
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(new ApiResponse(true, 200, TRANSACTION_FOUND, transactions));
+        }
         log.info("Fetching page of transactions by user started");
         Page<TransactionResponseDTO> transactionResponseDTO = transactionService.findAllTransactionsByUser(userId, page, size);
         log.info("Fetching page of transactions  by user completed");
@@ -116,6 +229,7 @@ public class TransactionController {
     }
 
     @GetMapping("/total/users/{userId}")
+    @PreAuthorize("@budgetAccessService.isSelf(authentication, #userId)")
     public ResponseEntity<ApiResponse> findTotalIncomeAndExpenseByUser(@PathVariable Integer userId) {
         log.info("Fetching total income and expense by user started");
         Map<String, Float> totalIncomeAndExpenseByUser = transactionService.getTotalIncomeAndExpenseByUser(userId);
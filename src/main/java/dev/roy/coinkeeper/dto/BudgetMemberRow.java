@@ -0,0 +1,4 @@
+package dev.roy.coinkeeper.dto;
+
+public record BudgetMemberRow(Integer budgetId, Integer userId, String email) {
+}
@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.dto;
+
+import java.time.LocalDateTime;
+
+public record BudgetRow(Integer budgetId, String name, String type, Float goal, LocalDateTime openDate, Integer userId) {
+}
@@ -0,0 +1,4 @@
+package dev.roy.coinkeeper.dto;
+
+public record BulkImportRowResult(int row, ImportStatus status, Integer transactionId, String message) {
+}
@@ -0,0 +1,4 @@
+package dev.roy.coinkeeper.dto;
+
+public record CategorySpend(String category, Double total) {
+}
@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.dto;
+
+import dev.roy.coinkeeper.entity.TransactionType;
+
+public record CategoryTotal(Integer budgetId, TransactionType type, String category, Double total) {
+}
@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext) {
+}
@@ -0,0 +1,5 @@
+package dev.roy.coinkeeper.dto;
+
+public enum ImportStatus {
+    IMPORTED, DUPLICATE, REJECTED
+}
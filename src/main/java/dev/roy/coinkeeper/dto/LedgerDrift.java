@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.dto;
+
+import dev.roy.coinkeeper.entity.TransactionType;
+
+public record LedgerDrift(Integer budgetId, Integer userId, TransactionType type, double expected, double actual) {
+}
@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.dto;
+
+import java.util.List;
+
+public record LedgerReconciliationReport(int keysChecked, List<LedgerDrift> drifts) {
+}
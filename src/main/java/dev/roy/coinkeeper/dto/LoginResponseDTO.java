@@ -1,6 +1,4 @@
 package dev.roy.coinkeeper.dto;
 
-import dev.roy.coinkeeper.entity.RefreshToken;
-
-public record LoginResponseDTO(String jwt, RefreshToken refreshToken, UserResponseDTO userDTO) {
+public record LoginResponseDTO(String jwt, String refreshToken, UserResponseDTO userDTO) {
 }
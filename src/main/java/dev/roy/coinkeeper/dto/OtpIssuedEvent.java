@@ -0,0 +1,5 @@
+package dev.roy.coinkeeper.dto;
+
+// Carries only the user, the code itself is read from the OTP store when the email is sent
+public record OtpIssuedEvent(Integer userId) {
+}
@@ -0,0 +1,4 @@
+package dev.roy.coinkeeper.dto;
+
+public record OutgoingMail(String to, String subject, String htmlContent) {
+}
@@ -0,0 +1,8 @@
+package dev.roy.coinkeeper.dto;
+
+import dev.roy.coinkeeper.entity.TransactionType;
+
+import java.time.LocalDateTime;
+
+public record SpendingBucket(LocalDateTime bucketStart, TransactionType type, String category, Double total) {
+}
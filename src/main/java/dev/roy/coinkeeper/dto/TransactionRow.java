@@ -0,0 +1,20 @@
+package dev.roy.coinkeeper.dto;
+
+import dev.roy.coinkeeper.entity.TransactionType;
+
+import java.time.LocalDateTime;
+
+public record TransactionRow(
+        Integer id,
+        TransactionType type,
+        Float amount,
+        String category,
+        String name,
+        Float quantity,
+        String unit,
+        LocalDateTime date,
+        Integer budgetId,
+        String budgetName,
+        Integer userId,
+        String userName) {
+}
@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.dto.budgetdetails;
+
+import dev.roy.coinkeeper.entity.TransactionType;
+
+public record MemberTypeTotal(String email, TransactionType type, Double total) {
+}
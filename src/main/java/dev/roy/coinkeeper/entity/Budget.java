@@ -5,19 +5,23 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "budgets")
+@NamedEntityGraph(name = Budget.WITH_MEMBERS, attributeNodes = @NamedAttributeNode("members"))
+@Table(name = "budgets", indexes = @Index(name = "idx_budgets_user_open_date", columnList = "user_id, open_date"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 public class Budget {
 
+    public static final String WITH_MEMBERS = "Budget.withMembers";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "budget_id")
@@ -30,11 +34,17 @@ public class Budget {
     @OneToMany(mappedBy = "budget", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private Set<Transaction> transactions;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
     @ManyToMany
-    @JoinTable(joinColumns = @JoinColumn(name = "budget_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
+    @BatchSize(size = 50)
+    @JoinTable(name = "budgets_members",
+            joinColumns = @JoinColumn(name = "budget_id"), inverseJoinColumns = @JoinColumn(name = "user_id"),
+            indexes = {
+                    @Index(name = "idx_budgets_members_budget", columnList = "budget_id"),
+                    @Index(name = "idx_budgets_members_user", columnList = "user_id, budget_id")
+            })
     private List<User> members;
 }
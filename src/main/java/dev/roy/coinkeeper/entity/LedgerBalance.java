@@ -0,0 +1,36 @@
+package dev.roy.coinkeeper.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "ledger_balances",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"budget_id", "user_id", "type", "stripe"}),
+        indexes = @Index(name = "idx_ledger_balances_user", columnList = "user_id, type"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class LedgerBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "ledger_balance_id")
+    private Integer id;
+    @Column(name = "budget_id", nullable = false)
+    private Integer budgetId;
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+    // Each (budget, member, type) total is spread over several rows so that
+    // concurrent writers on the same budget rarely wait on the same row lock
+    @Column(nullable = false)
+    private Integer stripe;
+    @Column(nullable = false)
+    private Double total;
+}
@@ -0,0 +1,38 @@
+package dev.roy.coinkeeper.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+// The unique key also serves the per-budget month range reads, it leads with budget_id and month_start
+@Table(name = "monthly_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_monthly_rollups_key",
+                columnNames = {"budget_id", "month_start", "type", "category"}))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MonthlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "monthly_rollup_id")
+    private Integer id;
+    @Column(name = "budget_id", nullable = false)
+    private Integer budgetId;
+    @Column(name = "month_start", nullable = false)
+    private LocalDateTime monthStart;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+    // Uncategorised transactions are rolled up under an empty category
+    @Column(nullable = false)
+    private String category;
+    @Column(nullable = false)
+    private Double total;
+}
@@ -0,0 +1,39 @@
+package dev.roy.coinkeeper.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_available_at", columnList = "available_at, id"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+    @Column(nullable = false)
+    private String type;
+    // The event serialized as JSON
+    @Column(nullable = false, length = 4000)
+    private String payload;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    // Pushed back after each failed delivery, and to the end of the lease while a poller has the event claimed
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    // Set by the poller delivering the event, so only that claim can delete or reschedule it
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+}
@@ -9,7 +9,10 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "refresh_token")
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_token_expiry", columnList = "expiry")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -19,10 +22,15 @@ public class RefreshToken {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Integer id;
-    private String token;
+    // Only the SHA-256 of the token is stored, the token itself lives in the client's cookie
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
     private LocalDateTime expiry;
+    // Copied from the user when the token is issued, so a refresh does not load the user and its roles
+    private String email;
+    private String roles;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 }
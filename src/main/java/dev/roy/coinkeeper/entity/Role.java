@@ -6,7 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "roles")
+@Table(name = "roles", indexes = @Index(name = "idx_roles_name", columnList = "name", unique = true))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,26 @@
+package dev.roy.coinkeeper.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rollup_months")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RollupMonth {
+
+    @Id
+    @Column(name = "month_start")
+    private LocalDateTime monthStart;
+    private LocalDateTime rolledUpAt;
+}
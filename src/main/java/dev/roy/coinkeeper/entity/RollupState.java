@@ -0,0 +1,30 @@
+package dev.roy.coinkeeper.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rollup_state")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RollupState {
+
+    // The table holds a single row, created by the migration
+    public static final Integer ID = 1;
+
+    @Id
+    private Integer id;
+    // Start of the first month that is not rolled up yet, null until a month has been rolled up
+    @Column(name = "rolled_up_until")
+    private LocalDateTime rolledUpUntil;
+}
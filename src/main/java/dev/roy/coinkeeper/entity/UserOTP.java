@@ -9,6 +9,7 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_userotp_expiry", columnList = "expiry"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -21,7 +22,7 @@ public class UserOTP {
     private Integer otp;
     private LocalDateTime expiry;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 }
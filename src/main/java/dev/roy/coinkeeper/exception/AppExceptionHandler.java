@@ -3,15 +3,20 @@ package dev.roy.coinkeeper.exception;
 import dev.roy.coinkeeper.dto.ApiResponse;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestControllerAdvice
 @Slf4j
@@ -39,6 +44,18 @@ public class AppExceptionHandler {
                 .body(new ApiResponse(false, 400, ex.getMessage(), violations));
     }
 
+    @ExceptionHandler(value = HandlerMethodValidationException.class)
+    public ResponseEntity<ApiResponse> handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        ex.getAllValidationResults().forEach(result -> errors.put(result.getMethodParameter().getParameterName(),
+                result.getResolvableErrors().stream()
+                        .map(MessageSourceResolvable::getDefaultMessage)
+                        .collect(Collectors.joining("; "))));
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, 400, "Invalid request", errors));
+    }
+
     @ExceptionHandler(value = UserRoleNotFoundException.class)
     public ResponseEntity<ApiResponse> handleUserRoleNotFoundException(UserRoleNotFoundException ex) {
         log.error(ex.getMessage());
@@ -84,6 +101,24 @@ public class AppExceptionHandler {
                 .body(new ApiResponse(false, 400, ex.getMessage(), errors));
     }
 
+    @ExceptionHandler(value = InvalidPeriodException.class)
+    public ResponseEntity<ApiResponse> handleInvalidPeriodException(InvalidPeriodException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, 400, ex.getMessage(), errors));
+    }
+
+    @ExceptionHandler(value = ImportTooLargeException.class)
+    public ResponseEntity<ApiResponse> handleImportTooLargeException(ImportTooLargeException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, 400, ex.getMessage(), errors));
+    }
+
     @ExceptionHandler(value = TransactionNotFoundException.class)
     public ResponseEntity<ApiResponse> handleTransactionNotFoundException(TransactionNotFoundException ex) {
         log.error(ex.getMessage());
@@ -119,4 +154,63 @@ public class AppExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new ApiResponse(false, 401, ex.getMessage(), errors));
     }
+
+    @ExceptionHandler(value = OTPAttemptsExceededException.class)
+    public ResponseEntity<ApiResponse> handleOTPAttemptsExceededException(OTPAttemptsExceededException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(new ApiResponse(false, 429, ex.getMessage(), errors));
+    }
+
+    @ExceptionHandler(value = RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse> handleRateLimitExceededException(RateLimitExceededException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        // Whole seconds, rounded up so a client retrying on time finds a token
+        long retryAfter = ex.getRetryAfter().plusNanos(999_999_999).toSeconds();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(new ApiResponse(false, 429, ex.getMessage(), errors));
+    }
+
+    @ExceptionHandler(value = HashingCapacityExceededException.class)
+    public ResponseEntity<ApiResponse> handleHashingCapacityExceededException(HashingCapacityExceededException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse(false, 503, ex.getMessage(), errors));
+    }
+
+    @ExceptionHandler(value = MailQueueFullException.class)
+    public ResponseEntity<ApiResponse> handleMailQueueFullException(MailQueueFullException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse(false, 503, ex.getMessage(), errors));
+    }
+
+    @ExceptionHandler(value = InvalidCursorException.class)
+    public ResponseEntity<ApiResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, 400, ex.getMessage(), errors));
+    }
+
+    @ExceptionHandler(value = AccessDeniedException.class)
+    public ResponseEntity<ApiResponse> handleAccessDeniedException(AccessDeniedException ex) {
+        log.error(ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put(MESSAGE, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new ApiResponse(false, 403, ex.getMessage(), errors));
+    }
 }
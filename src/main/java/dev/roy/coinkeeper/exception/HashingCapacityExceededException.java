@@ -0,0 +1,7 @@
+package dev.roy.coinkeeper.exception;
+
+public class HashingCapacityExceededException extends RuntimeException {
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
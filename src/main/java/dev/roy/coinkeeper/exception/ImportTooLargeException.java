@@ -0,0 +1,7 @@
+package dev.roy.coinkeeper.exception;
+
+public class ImportTooLargeException extends RuntimeException {
+    public ImportTooLargeException(String message) {
+        super(message);
+    }
+}
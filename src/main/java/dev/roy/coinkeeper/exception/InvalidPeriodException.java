@@ -0,0 +1,7 @@
+package dev.roy.coinkeeper.exception;
+
+public class InvalidPeriodException extends RuntimeException {
+    public InvalidPeriodException(String message) {
+        super(message);
+    }
+}
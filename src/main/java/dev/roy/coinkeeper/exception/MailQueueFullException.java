@@ -0,0 +1,7 @@
+package dev.roy.coinkeeper.exception;
+
+public class MailQueueFullException extends RuntimeException {
+    public MailQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package dev.roy.coinkeeper.exception;
+
+public class OTPAttemptsExceededException extends RuntimeException {
+    public OTPAttemptsExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,83 @@
 package dev.roy.coinkeeper.repository;
 
+import dev.roy.coinkeeper.dto.BudgetMemberRow;
+import dev.roy.coinkeeper.dto.BudgetRow;
 import dev.roy.coinkeeper.entity.Budget;
-import dev.roy.coinkeeper.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BudgetRepository extends JpaRepository<Budget, Integer> {
 
-    Page<Budget> findByUser(User user, Pageable pageable);
-    Page<Budget> findByMembers(List<User> members, Pageable pageable);
+    String SELECT_ROW = "select new dev.roy.coinkeeper.dto.BudgetRow(b.id, b.name, b.type, b.goal, b.openDate, b.user.id) ";
+    // Both branches of the union start from an index on the user, an OR of the two would scan every budget
+    String VISIBLE_TO_USER = """
+            b.id in (select o.id from Budget o where o.user.id = :userId
+                union select s.id from Budget s join s.members m where m.id = :userId)
+            """;
+
+    @Override
+    @EntityGraph(Budget.WITH_MEMBERS)
+    Optional<Budget> findById(Integer id);
+
+    @Query(value = SELECT_ROW + "from Budget b", countQuery = "select count(b) from Budget b")
+    Page<BudgetRow> findAllRows(Pageable pageable);
+
+    @Query(value = SELECT_ROW + "from Budget b where b.user.id = :userId",
+            countQuery = "select count(b) from Budget b where b.user.id = :userId")
+    Page<BudgetRow> findRowsByOwnerId(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query(value = SELECT_ROW + "from Budget b join b.members m where m.id = :userId",
+            countQuery = "select count(b) from Budget b join b.members m where m.id = :userId")
+    Page<BudgetRow> findRowsByMemberId(@Param("userId") Integer userId, Pageable pageable);
+
+    // Owned or shared budgets in one keyset scroll, the union removes duplicates so a budget is returned once
+    @Query(SELECT_ROW + "from Budget b where " + VISIBLE_TO_USER + """
+            order by b.openDate desc, b.id desc
+            """)
+    List<BudgetRow> findFirstRowsVisibleToUser(@Param("userId") Integer userId, Limit limit);
+
+    @Query(SELECT_ROW + "from Budget b where " + VISIBLE_TO_USER + """
+            and (b.openDate < :openDate or (b.openDate = :openDate and b.id < :id))
+            order by b.openDate desc, b.id desc
+            """)
+    List<BudgetRow> findRowsVisibleToUserBefore(@Param("userId") Integer userId,
+                                                @Param("openDate") LocalDateTime openDate,
+                                                @Param("id") Integer id, Limit limit);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.BudgetMemberRow(b.id, m.id, m.email)
+            from Budget b join b.members m
+            where b.id in :budgetIds
+            """)
+    List<BudgetMemberRow> findMemberRows(@Param("budgetIds") Collection<Integer> budgetIds);
+
+    @Query("""
+            select u.email from User u
+            where u.id = (select b.user.id from Budget b where b.id = :budgetId)
+            or u.id in (select m.id from Budget b join b.members m where b.id = :budgetId)
+            """)
+    List<String> findRosterEmails(@Param("budgetId") Integer budgetId);
+
+    @Query("""
+            select case when count(b) > 0 then true else false end from Budget b
+            where b.id = :budgetId
+            and (b.user.id = :userId or exists (select m.id from b.members m where m.id = :userId))
+            """)
+    boolean existsByIdAndOwnerOrMember(@Param("budgetId") Integer budgetId, @Param("userId") Integer userId);
+
+    @Query("""
+            select case when count(b) > 0 then true else false end from Budget b
+            where b.id = :budgetId and b.user.id = :userId
+            """)
+    boolean existsByIdAndOwner(@Param("budgetId") Integer budgetId, @Param("userId") Integer userId);
 }
@@ -0,0 +1,72 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.dto.LedgerKeyTotal;
+import dev.roy.coinkeeper.dto.TransactionTypeTotal;
+import dev.roy.coinkeeper.dto.budgetdetails.MemberTypeTotal;
+import dev.roy.coinkeeper.entity.LedgerBalance;
+import dev.roy.coinkeeper.entity.TransactionType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LedgerBalanceRepository extends JpaRepository<LedgerBalance, Integer> {
+
+    @Modifying
+    @Query("""
+            update LedgerBalance l set l.total = l.total + cast(:delta as Double)
+            where l.budgetId = :budgetId and l.userId = :userId and l.type = :type and l.stripe = :stripe
+            """)
+    int addToTotal(@Param("budgetId") Integer budgetId, @Param("userId") Integer userId,
+                   @Param("type") TransactionType type, @Param("stripe") Integer stripe,
+                   @Param("delta") double delta);
+
+    @Query("""
+            select l.stripe from LedgerBalance l
+            where l.budgetId = :budgetId and l.userId = :userId and l.type = :type
+            """)
+    List<Integer> findStripes(@Param("budgetId") Integer budgetId, @Param("userId") Integer userId,
+                              @Param("type") TransactionType type);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<LedgerBalance> findByBudgetIdAndUserIdAndType(Integer budgetId, Integer userId, TransactionType type);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.TransactionTypeTotal(l.type, sum(l.total))
+            from LedgerBalance l
+            where l.budgetId = :budgetId
+            group by l.type
+            """)
+    List<TransactionTypeTotal> sumTotalByTypeForBudget(@Param("budgetId") Integer budgetId);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.TransactionTypeTotal(l.type, sum(l.total))
+            from LedgerBalance l
+            where l.userId = :userId
+            group by l.type
+            """)
+    List<TransactionTypeTotal> sumTotalByTypeForUser(@Param("userId") Integer userId);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.budgetdetails.MemberTypeTotal(u.email, l.type, sum(l.total))
+            from LedgerBalance l join User u on u.id = l.userId
+            where l.budgetId = :budgetId
+            group by u.email, l.type
+            """)
+    List<MemberTypeTotal> sumTotalByMemberForBudget(@Param("budgetId") Integer budgetId);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.LedgerKeyTotal(l.budgetId, l.userId, l.type, sum(l.total))
+            from LedgerBalance l
+            group by l.budgetId, l.userId, l.type
+            """)
+    List<LedgerKeyTotal> sumTotalByKey();
+
+    @Modifying
+    @Query("delete from LedgerBalance l where l.budgetId = :budgetId")
+    void deleteByBudgetId(@Param("budgetId") Integer budgetId);
+}
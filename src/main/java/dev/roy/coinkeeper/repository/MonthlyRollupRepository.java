@@ -0,0 +1,57 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.dto.SpendingBucket;
+import dev.roy.coinkeeper.entity.MonthlyRollup;
+import dev.roy.coinkeeper.entity.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MonthlyRollupRepository extends JpaRepository<MonthlyRollup, Integer> {
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.SpendingBucket(r.monthStart, r.type, r.category, sum(r.total))
+            from MonthlyRollup r
+            where r.budgetId = :budgetId and r.monthStart >= :from and r.monthStart < :to
+            group by r.monthStart, r.type, r.category
+            """)
+    List<SpendingBucket> sumByMonthAndCategory(@Param("budgetId") Integer budgetId,
+                                               @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.SpendingBucket(r.monthStart, r.type, '', sum(r.total))
+            from MonthlyRollup r
+            where r.budgetId = :budgetId and r.monthStart >= :from and r.monthStart < :to
+            group by r.monthStart, r.type
+            """)
+    List<SpendingBucket> sumByMonth(@Param("budgetId") Integer budgetId,
+                                    @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("""
+            update MonthlyRollup r set r.total = r.total + cast(:delta as Double)
+            where r.budgetId = :budgetId and r.monthStart = :monthStart and r.type = :type and r.category = :category
+            """)
+    int addToTotal(@Param("budgetId") Integer budgetId, @Param("monthStart") LocalDateTime monthStart,
+                   @Param("type") TransactionType type, @Param("category") String category,
+                   @Param("delta") double delta);
+
+    // Sequence values taken here are never handed out by Hibernate's pooled optimizer, which only uses the block
+    // below each value it fetches itself
+    @Modifying
+    @Query(value = """
+            insert into monthly_rollups (monthly_rollup_id, budget_id, month_start, type, category, total)
+            values (nextval('monthly_rollups_seq'), :budgetId, :monthStart, :type, :category, 0)
+            on conflict do nothing
+            """, nativeQuery = true)
+    int insertIfMissing(@Param("budgetId") Integer budgetId, @Param("monthStart") LocalDateTime monthStart,
+                        @Param("type") String type, @Param("category") String category);
+
+    @Modifying
+    @Query("delete from MonthlyRollup r where r.budgetId = :budgetId")
+    void deleteByBudgetId(@Param("budgetId") Integer budgetId);
+}
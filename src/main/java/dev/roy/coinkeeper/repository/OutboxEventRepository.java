@@ -0,0 +1,28 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Rows locked by another poller are skipped rather than waited for, so several instances can drain the outbox
+    @Query(value = "select * from outbox_event where available_at <= :now "
+            + "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> lockDueEvents(LocalDateTime now, int limit);
+
+    // A claim that outlived its lease may have been taken over, in which case its rows are left to the new claim
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids and e.claimedBy = :claimedBy")
+    int deleteClaimed(Collection<Long> ids, String claimedBy);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.claimedBy = null, e.attempts = :attempts, e.availableAt = :availableAt, "
+            + "e.lastError = :lastError where e.id = :id and e.claimedBy = :claimedBy")
+    int reschedule(Long id, String claimedBy, int attempts, LocalDateTime availableAt, String lastError);
+}
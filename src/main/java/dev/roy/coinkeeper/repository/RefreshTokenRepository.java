@@ -2,11 +2,23 @@ package dev.roy.coinkeeper.repository;
 
 import dev.roy.coinkeeper.entity.RefreshToken;
 import dev.roy.coinkeeper.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
     Optional<RefreshToken> findByUser(User user);
+
+    @Query("select r.id from RefreshToken r where r.expiry < :now")
+    List<Integer> findExpiredIds(LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.id in :ids")
+    int deleteByIdIn(List<Integer> ids);
 }
@@ -0,0 +1,14 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.entity.RollupMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RollupMonthRepository extends JpaRepository<RollupMonth, LocalDateTime> {
+
+    @Query("select max(r.monthStart) from RollupMonth r")
+    Optional<LocalDateTime> findLatestMonthStart();
+}
@@ -0,0 +1,17 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.entity.RollupState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.Optional;
+
+public interface RollupStateRepository extends JpaRepository<RollupState, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<RollupState> findWithSharedLockById(Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RollupState> findWithExclusiveLockById(Integer id);
+}
@@ -1,22 +1,140 @@
 package dev.roy.coinkeeper.repository;
 
-import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.dto.CategorySpend;
+import dev.roy.coinkeeper.dto.CategoryTotal;
+import dev.roy.coinkeeper.dto.LedgerKeyTotal;
+import dev.roy.coinkeeper.dto.TransactionRow;
 import dev.roy.coinkeeper.entity.Transaction;
-import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.entity.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
 
-    Page<Transaction> findTransactionByBudget(Budget budget, Pageable pageable);
+    // Read endpoints build their rows straight from the result set, no entities are attached to the persistence context
+    String SELECT_ROW = """
+            select new dev.roy.coinkeeper.dto.TransactionRow(t.id, t.type, t.amount, t.category, t.name,
+                t.quantity, t.unit, t.date, b.id, b.name, u.id, u.name)
+            from Transaction t join t.budget b join t.user u
+            """;
 
-    List<Transaction> findTransactionByBudget(Budget budget);
+    @Override
+    @EntityGraph(Transaction.WITH_BUDGET_AND_USER)
+    Optional<Transaction> findById(Integer id);
 
-    Page<Transaction> findTransactionByUser(User user, PageRequest pageRequest);
+    @Query(value = SELECT_ROW, countQuery = "select count(t) from Transaction t")
+    Page<TransactionRow> findAllRows(Pageable pageable);
 
-    List<Transaction> findTransactionByUser(User user);
+    @Query(value = SELECT_ROW + "where b.id = :budgetId",
+            countQuery = "select count(t) from Transaction t where t.budget.id = :budgetId")
+    Page<TransactionRow> findRowsByBudgetId(@Param("budgetId") Integer budgetId, Pageable pageable);
+
+    @Query(value = SELECT_ROW + "where u.id = :userId",
+            countQuery = "select count(t) from Transaction t where t.user.id = :userId")
+    Page<TransactionRow> findRowsByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    // First page of the keyset scroll, later pages continue from the last row with the Before variant
+    @Query(SELECT_ROW + """
+            where b.id = :budgetId
+            order by t.date desc, t.id desc
+            """)
+    List<TransactionRow> findFirstRowsByBudgetId(@Param("budgetId") Integer budgetId, Limit limit);
+
+    @Query(SELECT_ROW + """
+            where b.id = :budgetId and (t.date < :date or (t.date = :date and t.id < :id))
+            order by t.date desc, t.id desc
+            """)
+    List<TransactionRow> findRowsByBudgetIdBefore(@Param("budgetId") Integer budgetId, @Param("date") LocalDateTime date,
+                                                  @Param("id") Integer id, Limit limit);
+
+    @Query(SELECT_ROW + """
+            where u.id = :userId
+            order by t.date desc, t.id desc
+            """)
+    List<TransactionRow> findFirstRowsByUserId(@Param("userId") Integer userId, Limit limit);
+
+    @Query(SELECT_ROW + """
+            where u.id = :userId and (t.date < :date or (t.date = :date and t.id < :id))
+            order by t.date desc, t.id desc
+            """)
+    List<TransactionRow> findRowsByUserIdBefore(@Param("userId") Integer userId, @Param("date") LocalDateTime date,
+                                                @Param("id") Integer id, Limit limit);
+
+    @Query("""
+            select t.contentHash from Transaction t
+            where t.budget.id = :budgetId and t.contentHash in :hashes
+            """)
+    List<String> findExistingContentHashes(@Param("budgetId") Integer budgetId,
+                                           @Param("hashes") Collection<String> hashes);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.CategoryTotal(t.budget.id, t.type, coalesce(t.category, ''), sum(t.amount))
+            from Transaction t
+            where t.date >= :from and t.date < :to
+            group by t.budget.id, t.type, coalesce(t.category, '')
+            """)
+    List<CategoryTotal> sumAmountByCategoryBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.CategorySpend(coalesce(t.category, ''), sum(t.amount))
+            from Transaction t
+            where t.budget.id = :budgetId and t.type = :type and t.date >= :from and t.date < :to
+            group by coalesce(t.category, '')
+            order by sum(t.amount) desc
+            """)
+    List<CategorySpend> findTopCategoriesByBudget(@Param("budgetId") Integer budgetId, @Param("type") TransactionType type,
+                                                  @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                  Limit limit);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.CategorySpend(coalesce(t.category, ''), sum(t.amount))
+            from Transaction t
+            where t.user.id = :userId and t.type = :type and t.date >= :from and t.date < :to
+            group by coalesce(t.category, '')
+            order by sum(t.amount) desc
+            """)
+    List<CategorySpend> findTopCategoriesByUser(@Param("userId") Integer userId, @Param("type") TransactionType type,
+                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                Limit limit);
+
+    @Query("select t.budget.id from Transaction t where t.id = :transactionId")
+    Optional<Integer> findBudgetIdById(@Param("transactionId") Integer transactionId);
+
+    @Query("select min(t.date) from Transaction t")
+    Optional<LocalDateTime> findEarliestDate();
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_ROW + """
+            where b.id = :budgetId
+            order by t.date desc, t.id desc
+            """)
+    Stream<TransactionRow> streamRowsByBudgetId(@Param("budgetId") Integer budgetId);
+
+    @Query("""
+            select coalesce(sum(t.amount), 0) from Transaction t
+            where t.budget.id = :budgetId and t.user.id = :userId and t.type = :type
+            """)
+    double sumAmount(@Param("budgetId") Integer budgetId, @Param("userId") Integer userId,
+                     @Param("type") TransactionType type);
+
+    @Query("""
+            select new dev.roy.coinkeeper.dto.LedgerKeyTotal(t.budget.id, t.user.id, t.type, sum(t.amount))
+            from Transaction t
+            group by t.budget.id, t.user.id, t.type
+            """)
+    List<LedgerKeyTotal> sumAmountByKey();
 }
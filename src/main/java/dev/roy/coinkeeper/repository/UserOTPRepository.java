@@ -1,12 +1,19 @@
 package dev.roy.coinkeeper.repository;
 
-import dev.roy.coinkeeper.entity.User;
 import dev.roy.coinkeeper.entity.UserOTP;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface UserOTPRepository extends JpaRepository<UserOTP, Integer> {
 
-    Optional<UserOTP> findByUser(User user);
+    @Query("select o from UserOTP o where o.user.id = :userId")
+    Optional<UserOTP> findByUserId(Integer userId);
+
+    @Modifying
+    @Query("delete from UserOTP o where o.expiry < :now")
+    int deleteExpired(LocalDateTime now);
 }
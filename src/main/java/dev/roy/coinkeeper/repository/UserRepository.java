@@ -1,10 +1,21 @@
 package dev.roy.coinkeeper.repository;
 
 import dev.roy.coinkeeper.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
+    @EntityGraph(User.WITH_ROLES)
     Optional<User> findByEmail(String email);
+
+    @EntityGraph(User.WITH_ROLES)
+    Optional<User> findWithRolesById(Integer id);
+
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    void updatePassword(Integer id, String password);
 }
@@ -1,33 +1,32 @@
 package dev.roy.coinkeeper.security.config;
 
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.SecurityContext;
-import dev.roy.coinkeeper.security.util.RSAKeyProperties;
+import dev.roy.coinkeeper.controller.JwksController;
+import dev.roy.coinkeeper.security.util.BoundedPasswordEncoder;
+import dev.roy.coinkeeper.security.util.CachingJwtDecoder;
+import dev.roy.coinkeeper.security.util.JwtSigningKeys;
+import dev.roy.coinkeeper.security.util.KeySetJwtDecoder;
+import dev.roy.coinkeeper.security.util.PasswordHashing;
+import dev.roy.coinkeeper.security.util.SignerJwtEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
@@ -35,11 +34,12 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
-@EnableAsync
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
@@ -47,18 +47,35 @@ public class SecurityConfig {
     private String[] origins;
     @Value("${cors.methods}")
     private String[] methods;
-    private final RSAKeyProperties keys;
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+    @Value("${password-hashing.algorithm:bcrypt}")
+    private String hashingAlgorithm;
+    @Value("${password-hashing.bcrypt.strength:0}")
+    private int bcryptStrength;
+    @Value("${password-hashing.pbkdf2.iterations:600000}")
+    private int pbkdf2Iterations;
+    @Value("${password-hashing.target-latency:PT0.25S}")
+    private Duration hashingTargetLatency;
+    @Value("${password-hashing.threads:4}")
+    private int hashingThreads;
+    @Value("${password-hashing.queue-capacity:32}")
+    private int hashingQueueCapacity;
+    private final JwtSigningKeys keys;
 
     private static final String ADMIN = "ADMIN";
     private static final String USER = "USER";
 
     @Bean
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain filterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
         return http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> {
                     auth.requestMatchers("/api/v1/auth/**").permitAll();
+                    auth.requestMatchers(HttpMethod.GET, JwksController.JWKS_PATH).permitAll();
+                    auth.requestMatchers("/actuator/health").permitAll();
+                    auth.requestMatchers("/actuator/**").hasRole(ADMIN);
                     auth.requestMatchers(HttpMethod.PUT,"/api/v1/users/**").hasAnyRole(ADMIN, USER);
                     auth.requestMatchers("/api/v1/users/**").hasRole(ADMIN);
                     auth.requestMatchers("/api/v1/budgets/**", "/api/v1/transactions/**")
@@ -66,7 +83,9 @@ public class SecurityConfig {
                 })
                 .oauth2ResourceServer(
                         oauth2 -> oauth2.jwt(
-                                jwtConfigurer -> jwtConfigurer.jwtAuthenticationConverter(jwtAuthenticationConverter())
+                                jwtConfigurer -> jwtConfigurer
+                                        .decoder(jwtDecoder)
+                                        .jwtAuthenticationConverter(jwtAuthenticationConverter())
                         )
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -74,28 +93,36 @@ public class SecurityConfig {
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        // Hashing runs on a bounded pool of its own, callers never hash while holding a database connection
+        PasswordEncoder passwordEncoder = PasswordHashing.create(hashingAlgorithm, bcryptStrength, pbkdf2Iterations,
+                hashingTargetLatency);
+        return new BoundedPasswordEncoder(passwordEncoder, hashingThreads, hashingQueueCapacity, meterRegistry);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService) {
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService,
+                                                       UserDetailsPasswordService userDetailsPasswordService,
+                                                       PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
         daoAuthenticationProvider.setUserDetailsService(userDetailsService);
-        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Stored hashes with other parameters than the configured ones are replaced on the next successful login
+        daoAuthenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return new ProviderManager(daoAuthenticationProvider);
     }
 
     @Bean
     public JwtEncoder jwtEncoder() {
-        JWK jwk = new RSAKey.Builder(keys.getPublicKey()).privateKey(keys.getPrivateKey()).build();
-        JWKSource<SecurityContext> jwkSource = new ImmutableJWKSet<>(new JWKSet(jwk));
-        return new NimbusJwtEncoder(jwkSource);
+        // Signs with the key under the signing alias and puts its kid into the token header
+        return new SignerJwtEncoder(keys);
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(keys.getPublicKey()).build();
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
+        // Picks the verification key by the kid in the token header, out of every key in the keystore
+        JwtDecoder jwtDecoder = new KeySetJwtDecoder(keys.getVerificationKeys());
+        return new CachingJwtDecoder(jwtDecoder, jwtCacheMaximumSize, meterRegistry);
     }
 
     @Bean
@@ -0,0 +1,6 @@
+package dev.roy.coinkeeper.security.model;
+
+import java.time.LocalDateTime;
+
+public record OneTimePassword(Integer otp, LocalDateTime expiry) {
+}
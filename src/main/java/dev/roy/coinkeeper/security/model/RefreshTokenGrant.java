@@ -0,0 +1,9 @@
+package dev.roy.coinkeeper.security.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything a refresh needs to issue a new JWT, roles are space separated as in the {@code roles} claim.
+ */
+public record RefreshTokenGrant(Integer userId, String email, String roles, LocalDateTime expiry) {
+}
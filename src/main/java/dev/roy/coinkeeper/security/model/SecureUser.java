@@ -18,6 +18,14 @@ public class SecureUser implements UserDetails {
         return user.getRoles().stream().map(role -> new SimpleGrantedAuthority(role.getName())).toList();
     }
 
+    public Integer getId() {
+        return user.getId();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
     @Override
     public String getPassword() {
         return user.getPassword();
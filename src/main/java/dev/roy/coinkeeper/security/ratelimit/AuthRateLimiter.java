@@ -0,0 +1,62 @@
+package dev.roy.coinkeeper.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.roy.coinkeeper.exception.RateLimitExceededException;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Throttles the auth endpoints per account and per client address, entirely in process. Called by the
+ * controller before the service, so a rejected request costs no database query and no password hash.
+ * The client address is the remote address as resolved by {@code server.forward-headers-strategy}, so behind
+ * a proxy it is the address the proxy reports rather than the proxy itself.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class AuthRateLimiter {
+
+    public static final String REGISTER = "register";
+    public static final String LOGIN = "login";
+    public static final String VERIFY_OTP = "verify-otp";
+    public static final String RESEND_OTP = "resend-otp";
+    public static final String FORGOT_PASSWORD = "forgot-password";
+
+    private final RateLimitProperties properties;
+    // Caffeine's map is striped, creating a bucket only contends with other keys in the same bin
+    private final Cache<String, TokenBucket> buckets;
+
+    public AuthRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maximumBuckets())
+                .expireAfterAccess(properties.idleTimeout())
+                .build();
+    }
+
+    /**
+     * Takes a token from the client address bucket and then from the account bucket of the endpoint.
+     *
+     * @throws RateLimitExceededException when either bucket is empty
+     */
+    public void check(String endpoint, String account, String clientAddress) {
+        RateLimitProperties.Limit limit = properties.endpoints().get(endpoint);
+        if (limit == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        consume(endpoint + "|ip|" + clientAddress, limit.ipCapacity(), limit.period(), now);
+        consume(endpoint + "|account|" + account.toLowerCase(Locale.ROOT), limit.accountCapacity(), limit.period(), now);
+    }
+
+    private void consume(String key, int capacity, Duration period, long now) {
+        long waitNanos = buckets.get(key, k -> new TokenBucket(capacity, period, now)).tryConsume(now);
+        if (waitNanos > 0) {
+            throw new RateLimitExceededException("Too many requests, please try again later",
+                    Duration.ofNanos(waitNanos));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.roy.coinkeeper.security.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Token bucket limits of the auth endpoints, keyed by endpoint name. An endpoint without an entry is not limited.
+ *
+ * @param maximumBuckets upper bound on the buckets held in memory
+ * @param idleTimeout    buckets untouched for this long are dropped, it should not be shorter than any period,
+ *                       so a dropped bucket would have been full again anyway
+ */
+@ConfigurationProperties("rate-limit")
+public record RateLimitProperties(@DefaultValue("100000") long maximumBuckets,
+                                  @DefaultValue("PT15M") Duration idleTimeout,
+                                  Map<String, Limit> endpoints) {
+
+    public RateLimitProperties {
+        endpoints = endpoints == null ? Map.of() : Map.copyOf(endpoints);
+    }
+
+    /**
+     * @param accountCapacity requests per period for one account
+     * @param ipCapacity      requests per period from one client address, over all accounts
+     * @param period          time in which an empty bucket fills up again
+     */
+    public record Limit(int accountCapacity, int ipCapacity, Duration period) {
+    }
+}
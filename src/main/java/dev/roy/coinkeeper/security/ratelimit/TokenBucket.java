@@ -0,0 +1,43 @@
+package dev.roy.coinkeeper.security.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Starts full and refills continuously, {@code capacity} tokens per {@code period}. Concurrent callers
+ * take tokens with a compare-and-set on an immutable state, so no request ever waits on a lock.
+ */
+class TokenBucket {
+
+    private record State(double tokens, long refilledAt) {
+    }
+
+    private final int capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    TokenBucket(int capacity, Duration period, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / period.toNanos();
+        this.state = new AtomicReference<>(new State(capacity, now));
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @return {@code 0} when a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    long tryConsume(long now) {
+        while (true) {
+            State current = state.get();
+            long elapsed = Math.max(0, now - current.refilledAt());
+            double tokens = Math.min(capacity, current.tokens() + elapsed * tokensPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.refilledAt())))) {
+                return 0;
+            }
+        }
+    }
+}
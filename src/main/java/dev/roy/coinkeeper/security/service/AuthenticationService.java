@@ -1,17 +1,16 @@
 package dev.roy.coinkeeper.security.service;
 
 import dev.roy.coinkeeper.dto.*;
-import dev.roy.coinkeeper.entity.RefreshToken;
 import dev.roy.coinkeeper.entity.Role;
 import dev.roy.coinkeeper.entity.User;
-import dev.roy.coinkeeper.entity.UserOTP;
+import dev.roy.coinkeeper.exception.HashingCapacityExceededException;
 import dev.roy.coinkeeper.exception.InvalidCredentialsException;
 import dev.roy.coinkeeper.exception.InvalidOTPException;
-import dev.roy.coinkeeper.exception.InvalidRefreshTokenException;
-import dev.roy.coinkeeper.repository.RefreshTokenRepository;
-import dev.roy.coinkeeper.repository.UserOTPRepository;
 import dev.roy.coinkeeper.repository.UserRepository;
-import dev.roy.coinkeeper.service.MailService;
+import dev.roy.coinkeeper.security.model.OneTimePassword;
+import dev.roy.coinkeeper.security.model.SecureUser;
+import dev.roy.coinkeeper.security.store.OtpStore;
+import dev.roy.coinkeeper.service.OutboxService;
 import dev.roy.coinkeeper.service.UserService;
 import jakarta.servlet.http.Cookie;
 import lombok.RequiredArgsConstructor;
@@ -22,17 +21,22 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Not transactional as a whole: password hashing runs outside any transaction, so it never holds a pooled
+ * connection, and each lookup or write runs in the short transaction of the service it calls. OTP emails go
+ * through the outbox and are sent by {@link dev.roy.coinkeeper.service.OutboxPoller}, never on the request thread.
+ */
 @Service
-@Transactional
 @RequiredArgsConstructor
 @Slf4j
 public class AuthenticationService {
@@ -41,19 +45,18 @@ public class AuthenticationService {
     private final TokenService tokenService;
     private final UserRepository userRepository;
     private final UserService userService;
-    private final RefreshTokenRepository tokenRepository;
-    private final UserOTPRepository otpRepository;
-    private final MailService mailService;
+    private final RefreshTokenService refreshTokenService;
+    private final OtpStore otpStore;
+    private final OtpAttemptGuard otpAttemptGuard;
+    private final OutboxService outboxService;
     private final PasswordEncoder passwordEncoder;
+    private final PlatformTransactionManager transactionManager;
     private final Random random = new Random();
 
     public UserResponseDTO register(UserRequestDTO dto) {
         UserResponseDTO userResponseDTO = userService.addUser(dto);
         Optional<User> savedUser = userRepository.findByEmail(userResponseDTO.email());
-        savedUser.ifPresent(user -> {
-            Integer otp = generateOTP(user);
-            mailService.sendOTPViaEmail(user.getName(), user.getEmail(), otp);
-        });
+        savedUser.ifPresent(this::issueOTP);
         return userResponseDTO;
     }
 
@@ -62,79 +65,46 @@ public class AuthenticationService {
             Authentication auth = authManager.authenticate(new UsernamePasswordAuthenticationToken(dto.email(), dto.password()));
             String jwt = tokenService.generateJWT(auth);
 
-            RefreshToken savedRefreshToken;
-            User user = userService.getUser(dto.email());
-            // Check if refresh token exists for the user
-            Optional<RefreshToken> rtOpt = tokenRepository.findByUser(user);
-            RefreshToken refreshToken;
-            if (rtOpt.isPresent()) {
-                refreshToken = rtOpt.get();
-                refreshToken.setToken(UUID.randomUUID().toString());
-                refreshToken.setExpiry(LocalDateTime.now().plusMinutes(60));
-            } else {
-                refreshToken = new RefreshToken();
-                refreshToken.setToken(UUID.randomUUID().toString());
-                refreshToken.setExpiry(LocalDateTime.now().plusMinutes(60));
-                refreshToken.setUser(user);
-            }
-            savedRefreshToken = tokenRepository.save(refreshToken);
+            User user = ((SecureUser) auth.getPrincipal()).getUser();
+            String refreshToken = refreshTokenService.issue(user);
             Set<String> roles = user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
-            return new LoginResponseDTO(jwt, savedRefreshToken, new UserResponseDTO(user.getId(), user.getName(), user.getEmail(), user.getPicture(), roles));
+            return new LoginResponseDTO(jwt, refreshToken, new UserResponseDTO(user.getId(), user.getName(), user.getEmail(), user.getPicture(), roles));
         } catch (AuthenticationException ex) {
+            // An unknown email is still checked against a dummy hash, which fails like this when the encoder is saturated
+            if (ex.getCause() instanceof HashingCapacityExceededException capacityExceeded) {
+                throw capacityExceeded;
+            }
             log.error("Authentication failed {}", ex.getMessage());
             throw new InvalidCredentialsException(ex.getMessage());
         }
     }
 
     public String getNewJwt(Cookie cookie) {
-        String token = cookie.getValue();
-        Optional<RefreshToken> tokenOpt = tokenRepository.findByToken(token);
-        if (tokenOpt.isEmpty()) {
-            throw new InvalidRefreshTokenException("Invalid Refresh token");
-        }
-
-        if (tokenOpt.get().getExpiry().isBefore(LocalDateTime.now())) {
-            throw new InvalidRefreshTokenException("Expired Refresh token");
-        }
-
-        User user = userService.getUser(tokenOpt.get().getUser().getId());
-        return tokenService.generateJWT(user);
+        return tokenService.generateJWT(refreshTokenService.findGrant(cookie.getValue()));
     }
 
     public void deleteRefreshToken(Cookie cookie) {
-        String token = cookie.getValue();
-        Optional<RefreshToken> tokenOpt = tokenRepository.findByToken(token);
-        if (tokenOpt.isEmpty()) {
-            throw new InvalidRefreshTokenException("Invalid Refresh token");
-        }
-        tokenRepository.delete(tokenOpt.get());
+        refreshTokenService.revoke(cookie.getValue());
     }
 
+    @Transactional
     public void verifyOTP(VerifyOTPRequestDTO dto) {
+        otpAttemptGuard.reserveAttempt(dto.userId());
+        checkOTP(dto.userId(), dto.otp());
         User user = userService.getUser(dto.userId());
-        Optional<UserOTP> userOTP = otpRepository.findByUser(user);
-        if (userOTP.isEmpty()) {
-            throw new InvalidOTPException("Invalid OTP");
-        }
-        if (!dto.otp().equals(userOTP.get().getOtp())) {
-            throw new InvalidOTPException("OTP mismatch");
-        }
-        if (userOTP.get().getExpiry().isBefore(LocalDateTime.now())) {
-            throw new InvalidOTPException("OTP expired");
-        }
         // activate the user
         user.setActive(true);
         userRepository.save(user);
         // remove existing OTP entry
-        otpRepository.delete(userOTP.get());
+        otpStore.delete(user.getId());
+        otpAttemptGuard.reset(user.getId());
     }
 
     public String resendOTP(ResendOTPRequestDTO dto) {
         User user = userService.getUser(dto.userId());
         // Verify if User is not active then resend new OTP
         if (!user.isActive()) {
-            Integer otp = generateOTP(user);
-            mailService.sendOTPViaEmail(user.getName(), user.getEmail(), otp);
+            issueOTP(user);
             return "OTP resend successful";
         }
         return "User is already activated, please login";
@@ -142,41 +112,47 @@ public class AuthenticationService {
 
     public void verifyEmailAndSendOTP(ForgetPasswordRequestDTO dto) {
         User user = userService.getUser(dto.email());
-        Integer otp = generateOTP(user);
-        mailService.sendOTPViaEmail(user.getName(), user.getEmail(), otp);
+        issueOTP(user);
     }
 
     public void resetPassword(ResetPasswordRequestDTO dto) {
-        // Verify the OTP of the user
+        // Attempts are counted per user id, so guesses through verifyOTP and here share one limit
         User user = userService.getUser(dto.email());
-        Optional<UserOTP> userOTP = otpRepository.findByUser(user);
+        otpAttemptGuard.reserveAttempt(user.getId());
+        checkOTP(user.getId(), dto.otp());
+        user.setPassword(passwordEncoder.encode(dto.password()));
+        userRepository.save(user);
+        otpStore.delete(user.getId());
+        otpAttemptGuard.reset(user.getId());
+    }
+
+    // Callers reserve an attempt first, so a burst of guesses past the limit never reaches the OTP store
+    private void checkOTP(Integer userId, Integer otp) {
+        Optional<OneTimePassword> userOTP = otpStore.find(userId);
         if (userOTP.isEmpty()) {
             throw new InvalidOTPException("Invalid OTP");
         }
-        if (!dto.otp().equals(userOTP.get().getOtp())) {
+        if (!otp.equals(userOTP.get().otp())) {
             throw new InvalidOTPException("OTP mismatch");
         }
-        if (userOTP.get().getExpiry().isBefore(LocalDateTime.now())) {
+        if (userOTP.get().expiry().isBefore(LocalDateTime.now())) {
             throw new InvalidOTPException("OTP expired");
         }
-        user.setPassword(passwordEncoder.encode(dto.password()));
-        userRepository.save(user);
-        otpRepository.delete(userOTP.get());
     }
 
-    private Integer generateOTP(User user) {
+    // The OTP and the event that mails it are committed together, so an OTP is never stored without its email
+    private void issueOTP(User user) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            generateOTP(user);
+            outboxService.publish(new OtpIssuedEvent(user.getId()));
+        });
+    }
+
+    private void generateOTP(User user) {
         log.info("Generating OTP for user: {}", user.getEmail());
-        Optional<UserOTP> userOTP = otpRepository.findByUser(user);
+        Optional<OneTimePassword> userOTP = otpStore.find(user.getId());
         final int OTP = random.nextInt(100000, 999999);
-        UserOTP tempOTP;
-        if (userOTP.isEmpty()) {
-            tempOTP = new UserOTP(0, OTP, LocalDateTime.now().plusMinutes(15), user);
-        } else {
-            tempOTP = userOTP.get();
-            tempOTP.setOtp(OTP);
-            tempOTP.setExpiry(LocalDateTime.now().plusMinutes(2));
-        }
-        otpRepository.save(tempOTP);
-        return OTP;
+        LocalDateTime expiry = userOTP.isEmpty() ? LocalDateTime.now().plusMinutes(15) : LocalDateTime.now().plusMinutes(2);
+        otpStore.save(user.getId(), new OneTimePassword(OTP, expiry));
     }
 }
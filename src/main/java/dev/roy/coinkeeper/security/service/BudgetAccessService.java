@@ -0,0 +1,128 @@
+package dev.roy.coinkeeper.security.service;
+
+import dev.roy.coinkeeper.config.CacheConfig;
+import dev.roy.coinkeeper.dto.TransactionRequestDTO;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether the caller may see a budget, its transactions or a user's data. Budgets a user is known to own
+ * or belong to are remembered per user, so only the first request for a budget runs the membership query.
+ * Used from {@code @PreAuthorize} expressions on the controllers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetAccessService {
+
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    private final BudgetRepository budgetRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    public boolean canAccessBudget(Authentication auth, Integer budgetId) {
+        if (isAdmin(auth)) {
+            return true;
+        }
+        return budgetId != null && getUserId(auth).map(userId -> hasAccess(userId, budgetId)).orElse(false);
+    }
+
+    // Renaming or deleting a budget is left to its owner, members may only read it and post to it
+    public boolean isBudgetOwner(Authentication auth, Integer budgetId) {
+        if (isAdmin(auth)) {
+            return true;
+        }
+        return budgetId != null && getUserId(auth)
+                .map(userId -> budgetRepository.existsByIdAndOwner(budgetId, userId))
+                .orElse(false);
+    }
+
+    /**
+     * A transaction may only be posted in the caller's own name, to a budget the caller can access.
+     */
+    public boolean canPostTransaction(Authentication auth, TransactionRequestDTO dto) {
+        return isSelf(auth, dto.userId()) && canAccessBudget(auth, dto.budgetId());
+    }
+
+    public boolean canPostTransactions(Authentication auth, Collection<TransactionRequestDTO> dtos) {
+        boolean ownRows = dtos.stream()
+                .map(TransactionRequestDTO::userId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .allMatch(userId -> isSelf(auth, userId));
+        return ownRows && dtos.stream()
+                .map(TransactionRequestDTO::budgetId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .allMatch(budgetId -> canAccessBudget(auth, budgetId));
+    }
+
+    public boolean canAccessTransaction(Authentication auth, Integer transactionId) {
+        if (isAdmin(auth)) {
+            return true;
+        }
+        // An unknown transaction is let through so that the controller can answer with a 404
+        return transactionRepository.findBudgetIdById(transactionId)
+                .map(budgetId -> canAccessBudget(auth, budgetId))
+                .orElse(true);
+    }
+
+    public boolean isSelf(Authentication auth, Integer userId) {
+        return isAdmin(auth) || getUserId(auth).map(id -> id.equals(userId)).orElse(false);
+    }
+
+    public boolean hasAccess(Integer userId, Integer budgetId) {
+        // The set is fetched before the query, so a set evicted meanwhile is simply dropped with the stale result
+        Set<Integer> accessibleBudgets = getAccessCache().get(userId, ConcurrentHashMap::newKeySet);
+        if (accessibleBudgets.contains(budgetId)) {
+            return true;
+        }
+        boolean accessible = budgetRepository.existsByIdAndOwnerOrMember(budgetId, userId);
+        if (accessible) {
+            accessibleBudgets.add(budgetId);
+        }
+        return accessible;
+    }
+
+    public void evict(Collection<Integer> userIds) {
+        Cache accessCache = getAccessCache();
+        userIds.forEach(accessCache::evict);
+    }
+
+    private Optional<Integer> getUserId(Authentication auth) {
+        if (auth instanceof JwtAuthenticationToken token) {
+            Object userId = token.getToken().getClaims().get(TokenService.USER_ID_CLAIM);
+            if (userId instanceof Number number) {
+                return Optional.of(number.intValue());
+            }
+        }
+        // Tokens issued before the user id claim was added only carry the email
+        log.info("Resolving user id from email: {}", auth.getName());
+        return userRepository.findByEmail(auth.getName()).map(User::getId);
+    }
+
+    private static boolean isAdmin(Authentication auth) {
+        return auth.getAuthorities().stream().anyMatch(authority -> ROLE_ADMIN.equals(authority.getAuthority()));
+    }
+
+    private Cache getAccessCache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConfig.BUDGET_ACCESS));
+    }
+}
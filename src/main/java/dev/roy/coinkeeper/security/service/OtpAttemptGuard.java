@@ -0,0 +1,44 @@
+package dev.roy.coinkeeper.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.roy.coinkeeper.exception.OTPAttemptsExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Counts OTP verification attempts per user id in process, whichever endpoint they came through. An attempt is
+ * reserved before the OTP is looked up and only a successful verification clears the count, so concurrent
+ * guesses cannot all pass the check before any of them is counted. Once the limit is reached further attempts
+ * are rejected until the window has passed since the last one.
+ */
+@Component
+public class OtpAttemptGuard {
+
+    private static final long MAXIMUM_USERS = 100_000;
+
+    private final Cache<Integer, Integer> attempts;
+    private final int maximumAttempts;
+
+    public OtpAttemptGuard(@Value("${otp.attempts.maximum:5}") int maximumAttempts,
+                           @Value("${otp.attempts.window:PT15M}") Duration window) {
+        this.maximumAttempts = maximumAttempts;
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_USERS)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void reserveAttempt(Integer userId) {
+        Integer reserved = attempts.asMap().merge(userId, 1, Integer::sum);
+        if (reserved > maximumAttempts) {
+            throw new OTPAttemptsExceededException("Too many OTP attempts, please try again later");
+        }
+    }
+
+    public void reset(Integer userId) {
+        attempts.invalidate(userId);
+    }
+}
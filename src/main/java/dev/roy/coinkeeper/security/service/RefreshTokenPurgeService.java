@@ -0,0 +1,49 @@
+package dev.roy.coinkeeper.security.service;
+
+import dev.roy.coinkeeper.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenPurgeService {
+
+    private final RefreshTokenRepository tokenRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${refresh-token.purge.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Deletes expired refresh tokens in batches, each batch in its own transaction so the purge
+     * never holds locks on a large part of the table.
+     */
+    @Scheduled(initialDelayString = "${refresh-token.purge.initial-delay:PT5M}",
+            fixedDelayString = "${refresh-token.purge.interval:PT1H}")
+    public int purgeExpired() {
+        log.info("Refresh token purge started");
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = template.execute(status -> {
+                List<Integer> ids = tokenRepository.findExpiredIds(now, Limit.of(batchSize));
+                return ids.isEmpty() ? 0 : tokenRepository.deleteByIdIn(ids);
+            });
+            purged += deleted;
+        } while (deleted == batchSize);
+        log.info("Refresh token purge completed, {} expired tokens removed", purged);
+        return purged;
+    }
+}
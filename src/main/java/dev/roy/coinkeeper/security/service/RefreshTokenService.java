@@ -0,0 +1,114 @@
+package dev.roy.coinkeeper.security.service;
+
+import dev.roy.coinkeeper.config.CacheConfig;
+import dev.roy.coinkeeper.entity.RefreshToken;
+import dev.roy.coinkeeper.entity.Role;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.exception.InvalidRefreshTokenException;
+import dev.roy.coinkeeper.repository.RefreshTokenRepository;
+import dev.roy.coinkeeper.security.model.RefreshTokenGrant;
+import dev.roy.coinkeeper.security.util.TokenHashes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Refresh tokens are stored as SHA-256 hashes together with the claims a refresh needs, and the grants are kept
+ * in the {@link CacheConfig#REFRESH_TOKENS} cache in front of the table. Cache writes and evictions are applied
+ * when the surrounding transaction commits. The stored claims are a snapshot, so the user's tokens are revoked
+ * with {@link #revokeAll} whenever the email they carry changes.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    public static final Duration LIFETIME = Duration.ofMinutes(60);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository tokenRepository;
+    private final CacheManager cacheManager;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Issues a new refresh token for the user, replacing the one it had, and returns it for the client's cookie.
+     */
+    public String issue(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String tokenHash = TokenHashes.sha256(token);
+        LocalDateTime expiry = LocalDateTime.now().plus(LIFETIME);
+        String roles = user.getRoles().stream().map(Role::getName).collect(Collectors.joining(" "));
+
+        Optional<RefreshToken> tokenOpt = tokenRepository.findByUser(user);
+        RefreshToken refreshToken;
+        if (tokenOpt.isPresent()) {
+            refreshToken = tokenOpt.get();
+            cache().evict(refreshToken.getTokenHash());
+        } else {
+            refreshToken = new RefreshToken();
+            refreshToken.setUser(user);
+        }
+        refreshToken.setTokenHash(tokenHash);
+        refreshToken.setExpiry(expiry);
+        refreshToken.setEmail(user.getEmail());
+        refreshToken.setRoles(roles);
+        tokenRepository.save(refreshToken);
+        cache().put(tokenHash, new RefreshTokenGrant(user.getId(), user.getEmail(), roles, expiry));
+        return token;
+    }
+
+    // Runs on the primary, a refresh right after login has to find the token that was just issued
+    public RefreshTokenGrant findGrant(String token) {
+        String tokenHash = TokenHashes.sha256(token);
+        RefreshTokenGrant grant = cache().get(tokenHash, RefreshTokenGrant.class);
+        if (grant == null) {
+            Optional<RefreshToken> tokenOpt = tokenRepository.findByTokenHash(tokenHash);
+            if (tokenOpt.isEmpty()) {
+                throw new InvalidRefreshTokenException("Invalid Refresh token");
+            }
+            RefreshToken refreshToken = tokenOpt.get();
+            grant = new RefreshTokenGrant(refreshToken.getUser().getId(), refreshToken.getEmail(),
+                    refreshToken.getRoles(), refreshToken.getExpiry());
+            cache().put(tokenHash, grant);
+        }
+
+        if (grant.expiry().isBefore(LocalDateTime.now())) {
+            throw new InvalidRefreshTokenException("Expired Refresh token");
+        }
+        return grant;
+    }
+
+    public void revoke(String token) {
+        String tokenHash = TokenHashes.sha256(token);
+        Optional<RefreshToken> tokenOpt = tokenRepository.findByTokenHash(tokenHash);
+        if (tokenOpt.isEmpty()) {
+            throw new InvalidRefreshTokenException("Invalid Refresh token");
+        }
+        tokenRepository.delete(tokenOpt.get());
+        cache().evict(tokenHash);
+    }
+
+    public void revokeAll(User user) {
+        tokenRepository.findByUser(user).ifPresent(refreshToken -> {
+            tokenRepository.delete(refreshToken);
+            cache().evict(refreshToken.getTokenHash());
+        });
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.REFRESH_TOKENS);
+    }
+}
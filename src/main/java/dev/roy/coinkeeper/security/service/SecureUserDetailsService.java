@@ -4,16 +4,20 @@ import dev.roy.coinkeeper.entity.User;
 import dev.roy.coinkeeper.repository.UserRepository;
 import dev.roy.coinkeeper.security.model.SecureUser;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @RequiredArgsConstructor
 @Service
-public class SecureUserDetailsService implements UserDetailsService {
+@Slf4j
+public class SecureUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -25,4 +29,15 @@ public class SecureUserDetailsService implements UserDetailsService {
         }
         return new SecureUser(userOpt.get());
     }
+
+    // Called after a successful login whose stored hash was made with other parameters than the configured ones
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = ((SecureUser) userDetails).getUser();
+        userRepository.updatePassword(user.getId(), newPassword);
+        user.setPassword(newPassword);
+        log.info("Password hash of user: {} upgraded", user.getEmail());
+        return userDetails;
+    }
 }
@@ -2,6 +2,8 @@ package dev.roy.coinkeeper.security.service;
 
 import dev.roy.coinkeeper.entity.Role;
 import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.security.model.RefreshTokenGrant;
+import dev.roy.coinkeeper.security.model.SecureUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -17,39 +19,39 @@ import java.util.stream.Collectors;
 @Service
 public class TokenService {
 
+    public static final String USER_ID_CLAIM = "uid";
+
     private final JwtEncoder jwtEncoder;
 
     public String generateJWT(Authentication auth) {
-        Instant now = Instant.now();
-
         String scope = auth.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(" "));
-
-        JwtClaimsSet claimsSet = JwtClaimsSet.builder()
-                .issuer("coin-keeper")
-                .issuedAt(now)
-                .expiresAt(now.plusSeconds(120))
-                .subject(auth.getName())
-                .claim("roles", scope)
-                .build();
-
-        return jwtEncoder.encode(JwtEncoderParameters.from(claimsSet)).getTokenValue();
+        return generateJWT(((SecureUser) auth.getPrincipal()).getId(), auth.getName(), scope);
     }
 
     public String generateJWT(User user) {
-        Instant now = Instant.now();
-
         String scope = user.getRoles().stream()
                 .map(Role::getName)
                 .collect(Collectors.joining(" "));
+        return generateJWT(user.getId(), user.getEmail(), scope);
+    }
+
+    public String generateJWT(RefreshTokenGrant grant) {
+        return generateJWT(grant.userId(), grant.email(), grant.roles());
+    }
+
+    // Every token is built here, so they all share the issuer, lifetime and claims
+    private String generateJWT(Integer userId, String email, String scope) {
+        Instant now = Instant.now();
 
         JwtClaimsSet claimsSet = JwtClaimsSet.builder()
                 .issuer("coin-keeper")
                 .issuedAt(now)
                 .expiresAt(now.plusSeconds(120))
-                .subject(user.getEmail())
+                .subject(email)
                 .claim("roles", scope)
+                .claim(USER_ID_CLAIM, userId)
                 .build();
 
         return jwtEncoder.encode(JwtEncoderParameters.from(claimsSet)).getTokenValue();
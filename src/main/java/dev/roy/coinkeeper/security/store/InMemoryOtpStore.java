@@ -0,0 +1,67 @@
+package dev.roy.coinkeeper.security.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import dev.roy.coinkeeper.security.model.OneTimePassword;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps one-time passwords in process, each entry is dropped when its code expires. Only suitable for a single
+ * instance, as a code sent by one instance cannot be verified on another.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Cache<Integer, OneTimePassword> otps;
+
+    public InMemoryOtpStore(@Value("${otp.memory.maximum-size:100000}") long maximumSize) {
+        this.otps = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilOtpExpiry())
+                // Sweeps expired codes in the background instead of on the next access
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    @Override
+    public Optional<OneTimePassword> find(Integer userId) {
+        return Optional.ofNullable(otps.getIfPresent(userId));
+    }
+
+    @Override
+    public void save(Integer userId, OneTimePassword otp) {
+        otps.put(userId, otp);
+    }
+
+    @Override
+    public void delete(Integer userId) {
+        otps.invalidate(userId);
+    }
+
+    private static class UntilOtpExpiry implements Expiry<Integer, OneTimePassword> {
+
+        @Override
+        public long expireAfterCreate(Integer userId, OneTimePassword otp, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), otp.expiry()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Integer userId, OneTimePassword otp, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, otp, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Integer userId, OneTimePassword otp, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package dev.roy.coinkeeper.security.store;
+
+import dev.roy.coinkeeper.entity.UserOTP;
+import dev.roy.coinkeeper.repository.UserOTPRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.model.OneTimePassword;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps one-time passwords in the {@code userotp} table, so they survive restarts and are shared by every instance.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "jpa", matchIfMissing = true)
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class JpaOtpStore implements OtpStore {
+
+    private final UserOTPRepository otpRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    public Optional<OneTimePassword> find(Integer userId) {
+        return otpRepository.findByUserId(userId)
+                .map(userOTP -> new OneTimePassword(userOTP.getOtp(), userOTP.getExpiry()));
+    }
+
+    @Override
+    public void save(Integer userId, OneTimePassword otp) {
+        UserOTP userOTP = otpRepository.findByUserId(userId)
+                .orElseGet(() -> new UserOTP(null, null, null, userRepository.getReferenceById(userId)));
+        userOTP.setOtp(otp.otp());
+        userOTP.setExpiry(otp.expiry());
+        otpRepository.save(userOTP);
+    }
+
+    @Override
+    public void delete(Integer userId) {
+        otpRepository.findByUserId(userId).ifPresent(otpRepository::delete);
+    }
+
+    @Scheduled(initialDelayString = "${otp.purge.initial-delay:PT5M}", fixedDelayString = "${otp.purge.interval:PT1H}")
+    public void purgeExpired() {
+        int purged = otpRepository.deleteExpired(LocalDateTime.now());
+        log.info("OTP purge completed, {} expired codes removed", purged);
+    }
+}
@@ -0,0 +1,18 @@
+package dev.roy.coinkeeper.security.store;
+
+import dev.roy.coinkeeper.security.model.OneTimePassword;
+
+import java.util.Optional;
+
+/**
+ * Holds the current one-time password of each user, a user has at most one at a time.
+ * The implementation is picked with {@code otp.store}: {@code jpa} (default) or {@code memory}.
+ */
+public interface OtpStore {
+
+    Optional<OneTimePassword> find(Integer userId);
+
+    void save(Integer userId, OneTimePassword otp);
+
+    void delete(Integer userId);
+}
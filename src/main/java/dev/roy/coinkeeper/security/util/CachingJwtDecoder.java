@@ -0,0 +1,73 @@
+package dev.roy.coinkeeper.security.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Keeps the claims of verified tokens until they expire, so a client presenting the same bearer token on every
+ * request pays for parsing and signature verification once. Entries are keyed by the SHA-256 of the token and
+ * hold only its headers and claims, the returned {@link Jwt} is rebuilt around the token the client presented.
+ * Tokens that fail to decode are not cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    public static final String CACHE_NAME = "jwtDecoder";
+
+    private final JwtDecoder delegate;
+    private final Cache<String, VerifiedClaims> cache;
+
+    private record VerifiedClaims(Instant issuedAt, Instant expiresAt, Map<String, Object> headers,
+                                  Map<String, Object> claims) {
+
+        static VerifiedClaims of(Jwt jwt) {
+            return new VerifiedClaims(jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getHeaders(), jwt.getClaims());
+        }
+    }
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public Jwt decode(String token) {
+        VerifiedClaims verified = cache.get(TokenHashes.sha256(token), key -> VerifiedClaims.of(delegate.decode(token)));
+        return new Jwt(token, verified.issuedAt(), verified.expiresAt(), verified.headers(), verified.claims());
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, VerifiedClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedClaims verified, long currentTime) {
+            // A token without an expiry is not kept at all
+            if (verified.expiresAt() == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), verified.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedClaims verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedClaims verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
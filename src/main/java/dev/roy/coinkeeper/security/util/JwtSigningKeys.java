@@ -0,0 +1,148 @@
+package dev.roy.coinkeeper.security.util;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.factories.DefaultJWSSignerFactory;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPrivateKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads the JWT keys from a PKCS12 keystore, using each alias as the key id ({@code kid}).
+ * The key under the signing alias signs new tokens, every key in the keystore still verifies the tokens it signed,
+ * so a key can be rotated by adding a new alias, switching the signing alias and removing the old one once its
+ * tokens have expired. The same works for switching between RS256 (RSA), ES256 (EC P-256) and EdDSA (Ed25519) keys.
+ */
+@Slf4j
+@Getter
+@Component
+public class JwtSigningKeys {
+
+    public static final Set<JWSAlgorithm> SUPPORTED_ALGORITHMS =
+            Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256, JWSAlgorithm.EdDSA);
+
+    // An X.509 encoded Ed25519 public key is a fixed prefix followed by the 32 raw key bytes
+    private static final int ED25519_KEY_LENGTH = 32;
+
+    private final JWSAlgorithm algorithm;
+    private final JWK signingKey;
+    private final JWSSigner signer;
+    private final JWKSet verificationKeys;
+
+    public JwtSigningKeys(@Value("${jwt.keystore.location:}") String location,
+                          @Value("${jwt.keystore.password:}") String password,
+                          @Value("${jwt.keystore.signing-alias:}") String signingAlias,
+                          @Value("${jwt.algorithm:RS256}") String algorithm,
+                          ResourceLoader resourceLoader) {
+        this.algorithm = JWSAlgorithm.parse(algorithm);
+        if (!SUPPORTED_ALGORITHMS.contains(this.algorithm)) {
+            throw new IllegalStateException("Unsupported JWT algorithm: " + algorithm);
+        }
+        if (location.isBlank()) {
+            // Tokens signed with a generated key do not survive a restart and are not accepted by other instances
+            log.warn("No JWT keystore configured, signing with a generated {} key", algorithm);
+            this.signingKey = KeyGeneratorUtility.generateKey(this.algorithm);
+            this.signer = createSigner(signingKey, this.algorithm);
+            this.verificationKeys = new JWKSet(signingKey.toPublicJWK());
+            return;
+        }
+        JWKSet keys = load(resourceLoader.getResource(location), password.toCharArray());
+        this.signingKey = keys.getKeyByKeyId(signingAlias);
+        if (signingKey == null || !signingKey.isPrivate()) {
+            throw new IllegalStateException("JWT keystore has no private key under the signing alias: " + signingAlias);
+        }
+        this.signer = createSigner(signingKey, this.algorithm);
+        this.verificationKeys = keys.toPublicJWKSet();
+        log.info("Loaded {} JWT verification keys, signing {} with: {}",
+                verificationKeys.getKeys().size(), algorithm, signingAlias);
+    }
+
+    // Signers are thread safe, creating one up front saves parsing the key on every token
+    private static JWSSigner createSigner(JWK key, JWSAlgorithm algorithm) {
+        try {
+            return new DefaultJWSSignerFactory().createJWSSigner(key, algorithm);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("JWT signing key " + key.getKeyID() + " cannot sign " + algorithm, e);
+        }
+    }
+
+    private static JWKSet load(Resource location, char[] password) {
+        try (InputStream in = location.getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            List<JWK> keys = new ArrayList<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                keys.add(loadKey(keyStore, alias, password));
+            }
+            return new JWKSet(keys);
+        } catch (IOException | GeneralSecurityException | JOSEException e) {
+            throw new IllegalStateException("Unable to load the JWT keystore: " + location, e);
+        }
+    }
+
+    private static JWK loadKey(KeyStore keyStore, String alias, char[] password)
+            throws GeneralSecurityException, JOSEException {
+        PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+        return switch (publicKey.getAlgorithm()) {
+            case "RSA" -> RSAKey.load(keyStore, alias, password);
+            case "EC" -> loadECKey(keyStore, alias, password, (ECPublicKey) publicKey);
+            case "EdDSA", "Ed25519" -> loadEd25519Key(keyStore, alias, password, publicKey);
+            default -> throw new IllegalStateException("Unsupported JWT key type " + publicKey.getAlgorithm()
+                    + " for alias: " + alias);
+        };
+    }
+
+    // Nimbus needs Bouncy Castle to read EC keys from a keystore and cannot read Ed25519 keys at all,
+    // so both are converted by hand
+    private static JWK loadECKey(KeyStore keyStore, String alias, char[] password, ECPublicKey publicKey)
+            throws GeneralSecurityException {
+        ECKey.Builder builder = new ECKey.Builder(Curve.forECParameterSpec(publicKey.getParams()), publicKey)
+                .keyUse(KeyUse.SIGNATURE)
+                .keyID(alias);
+        if (keyStore.getKey(alias, password) instanceof ECPrivateKey privateKey) {
+            builder.privateKey(privateKey);
+        }
+        return builder.build();
+    }
+
+    private static JWK loadEd25519Key(KeyStore keyStore, String alias, char[] password, PublicKey publicKey)
+            throws GeneralSecurityException {
+        byte[] encoded = publicKey.getEncoded();
+        byte[] x = Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_LENGTH, encoded.length);
+        OctetKeyPair.Builder builder = new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(x))
+                .keyUse(KeyUse.SIGNATURE)
+                .keyID(alias);
+        Key privateKey = keyStore.getKey(alias, password);
+        if (privateKey instanceof EdECPrivateKey edPrivateKey && edPrivateKey.getBytes().isPresent()) {
+            builder.d(Base64URL.encode(edPrivateKey.getBytes().get()));
+        }
+        return builder.build();
+    }
+}
@@ -1,21 +1,36 @@
 package dev.roy.coinkeeper.security.util;
 
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.JWKGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import java.util.UUID;
 
 public class KeyGeneratorUtility {
 
     private KeyGeneratorUtility() {}
 
-    protected static KeyPair generateRSAKeys() {
-        KeyPair keyPair;
+    protected static JWK generateKey(JWSAlgorithm algorithm) {
+        JWKGenerator<? extends JWK> generator;
+        if (JWSAlgorithm.RS256.equals(algorithm)) {
+            generator = new RSAKeyGenerator(2048);
+        } else if (JWSAlgorithm.ES256.equals(algorithm)) {
+            generator = new ECKeyGenerator(Curve.P_256);
+        } else if (JWSAlgorithm.EdDSA.equals(algorithm)) {
+            generator = new OctetKeyPairGenerator(Curve.Ed25519);
+        } else {
+            throw new IllegalStateException("Unsupported JWT algorithm: " + algorithm);
+        }
         try {
-            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
-            generator.initialize(2048);
-            keyPair = generator.generateKeyPair();
-        } catch (Exception e) {
+            return generator.keyUse(KeyUse.SIGNATURE).keyID(UUID.randomUUID().toString()).generate();
+        } catch (JOSEException e) {
             throw new IllegalStateException(e.getMessage());
         }
-        return keyPair;
     }
 }
@@ -0,0 +1,98 @@
+package dev.roy.coinkeeper.security.util;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Verifies tokens against the key with the {@code kid} from the token header, so tokens signed before a key
+ * rotation or an algorithm switch stay valid. A verifier is created once per key, and unlike the Nimbus
+ * processor behind {@code NimbusJwtDecoder} this also covers Ed25519 keys.
+ * Claims are converted and validated (expiry, not before) the same way {@code NimbusJwtDecoder} does it.
+ */
+public class KeySetJwtDecoder implements JwtDecoder {
+
+    private final Map<String, JWSVerifier> verifiers = new HashMap<>();
+    private final MappedJwtClaimSetConverter claimSetConverter = MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+    private final OAuth2TokenValidator<Jwt> validator = JwtValidators.createDefault();
+
+    public KeySetJwtDecoder(JWKSet verificationKeys) {
+        for (JWK key : verificationKeys.getKeys()) {
+            verifiers.put(key.getKeyID(), createVerifier(key));
+        }
+    }
+
+    @Override
+    public Jwt decode(String token) {
+        SignedJWT signedJwt;
+        Map<String, Object> claims;
+        try {
+            signedJwt = SignedJWT.parse(token);
+            claims = claimSetConverter.convert(signedJwt.getJWTClaimsSet().getClaims());
+        } catch (ParseException e) {
+            throw new BadJwtException("Malformed token: " + e.getMessage(), e);
+        }
+        JWSHeader header = signedJwt.getHeader();
+        JWSVerifier verifier = header.getKeyID() == null ? null : verifiers.get(header.getKeyID());
+        // The algorithm has to be one we sign with and fit the type of the key, a token cannot pick a weaker one
+        if (verifier == null || !JwtSigningKeys.SUPPORTED_ALGORITHMS.contains(header.getAlgorithm())
+                || !verifier.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+            throw new BadJwtException("No verification key for kid " + header.getKeyID() + " and " + header.getAlgorithm());
+        }
+        try {
+            if (!signedJwt.verify(verifier)) {
+                throw new BadJwtException("Invalid signature");
+            }
+        } catch (JOSEException e) {
+            throw new BadJwtException("Unable to verify the signature: " + e.getMessage(), e);
+        }
+        Jwt jwt = Jwt.withTokenValue(token)
+                .headers(headers -> headers.putAll(header.toJSONObject()))
+                .claims(claimsMap -> claimsMap.putAll(claims))
+                .build();
+        OAuth2TokenValidatorResult result = validator.validate(jwt);
+        if (result.hasErrors()) {
+            throw new JwtValidationException(result.getErrors().iterator().next().getDescription(), result.getErrors());
+        }
+        return jwt;
+    }
+
+    private static JWSVerifier createVerifier(JWK key) {
+        try {
+            if (key instanceof RSAKey rsaKey) {
+                return new RSASSAVerifier(rsaKey);
+            }
+            if (key instanceof ECKey ecKey) {
+                return new ECDSAVerifier(ecKey);
+            }
+            if (key instanceof OctetKeyPair octetKeyPair) {
+                return new Ed25519Verifier(octetKeyPair);
+            }
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unusable JWT verification key: " + key.getKeyID(), e);
+        }
+        throw new IllegalStateException("Unsupported JWT key type " + key.getKeyType() + " for: " + key.getKeyID());
+    }
+}
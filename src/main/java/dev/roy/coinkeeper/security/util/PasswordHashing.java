@@ -0,0 +1,141 @@
+package dev.roy.coinkeeper.security.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the password encoder from the configured algorithm and cost. Hashes are stored with an {@code {id}}
+ * prefix, so every supported algorithm can still be verified after the configuration changes, and hashes
+ * without a prefix are taken as BCrypt from before prefixes were introduced. BCrypt keeps its strength in the
+ * hash, PBKDF2 does not, so PBKDF2 hashes carry their iteration count in the id, as in {@code {pbkdf2-600000}}.
+ */
+@Slf4j
+public final class PasswordHashing {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+    public static final Set<String> SUPPORTED_ALGORITHMS = Set.of(BCRYPT, PBKDF2);
+
+    // Calibration never goes below these, whatever the hardware
+    static final int MINIMUM_BCRYPT_STRENGTH = 10;
+    static final int MAXIMUM_BCRYPT_STRENGTH = 16;
+
+    private static final int PBKDF2_SALT_LENGTH = 16;
+    private static final String PBKDF2_ID_PREFIX = PBKDF2 + "-";
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private PasswordHashing() {
+    }
+
+    /**
+     * @param bcryptStrength   BCrypt cost, {@code 0} to calibrate it against the target latency
+     * @param pbkdf2Iterations PBKDF2 iterations for new hashes, never calibrated: the count has to be the same
+     *                         on every instance and across restarts
+     */
+    public static PasswordEncoder create(String algorithm, int bcryptStrength, int pbkdf2Iterations,
+                                         Duration targetLatency) {
+        if (!SUPPORTED_ALGORITHMS.contains(algorithm)) {
+            throw new IllegalStateException("Password hashing algorithm " + algorithm + " is not one of "
+                    + SUPPORTED_ALGORITHMS);
+        }
+        if (pbkdf2Iterations <= 0) {
+            throw new IllegalStateException("PBKDF2 iterations must be positive, got " + pbkdf2Iterations);
+        }
+        // BCrypt is only calibrated when it hashes new passwords, otherwise it only verifies old hashes
+        if (bcryptStrength == 0) {
+            bcryptStrength = BCRYPT.equals(algorithm) ? bcryptStrength(targetLatency) : MINIMUM_BCRYPT_STRENGTH;
+        }
+        log.info("Hashing passwords with {}, BCrypt strength {}, PBKDF2 iterations {}",
+                algorithm, bcryptStrength, pbkdf2Iterations);
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        String pbkdf2Id = PBKDF2_ID_PREFIX + pbkdf2Iterations;
+        Pbkdf2PasswordEncoder pbkdf2 = pbkdf2(pbkdf2Iterations);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT.equals(algorithm) ? BCRYPT : pbkdf2Id,
+                Map.of(BCRYPT, bcrypt,
+                        pbkdf2Id, pbkdf2,
+                        // Written before the count was part of the id, only ever with an explicitly configured count
+                        PBKDF2, pbkdf2));
+        encoder.setDefaultPasswordEncoderForMatches(new UnregisteredHashes(bcrypt));
+        return encoder;
+    }
+
+    /**
+     * Highest BCrypt strength whose verification still fits the target latency on this machine.
+     */
+    static int bcryptStrength(Duration targetLatency) {
+        int strength = MINIMUM_BCRYPT_STRENGTH;
+        // Warms up the BCrypt code path before anything is timed
+        new BCryptPasswordEncoder(4).encode(CALIBRATION_PASSWORD);
+        while (strength < MAXIMUM_BCRYPT_STRENGTH) {
+            // Every step doubles the cost, so the next strength fits when the current one takes half the target
+            if (verificationTime(new BCryptPasswordEncoder(strength)).multipliedBy(2).compareTo(targetLatency) > 0) {
+                break;
+            }
+            strength++;
+        }
+        return strength;
+    }
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", PBKDF2_SALT_LENGTH, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    private static Duration verificationTime(PasswordEncoder encoder) {
+        String hash = encoder.encode(CALIBRATION_PASSWORD);
+        long start = System.nanoTime();
+        encoder.matches(CALIBRATION_PASSWORD, hash);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Verifies the hashes whose id is not registered: PBKDF2 hashes made with another iteration count than the
+     * configured one, and BCrypt hashes without a prefix. Only used for matching, never for encoding.
+     */
+    private static final class UnregisteredHashes implements PasswordEncoder {
+
+        private final PasswordEncoder legacy;
+        private final Map<Integer, Pbkdf2PasswordEncoder> pbkdf2ByIterations = new ConcurrentHashMap<>();
+
+        private UnregisteredHashes(PasswordEncoder legacy) {
+            this.legacy = legacy;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            throw new UnsupportedOperationException("Only verifies existing hashes");
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String prefixEncodedPassword) {
+            if (prefixEncodedPassword == null) {
+                return false;
+            }
+            String prefix = "{" + PBKDF2_ID_PREFIX;
+            int end = prefixEncodedPassword.indexOf('}');
+            if (!prefixEncodedPassword.startsWith(prefix) || end < 0) {
+                return legacy.matches(rawPassword, prefixEncodedPassword);
+            }
+            int iterations;
+            try {
+                iterations = Integer.parseInt(prefixEncodedPassword.substring(prefix.length(), end));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (iterations <= 0) {
+                return false;
+            }
+            return pbkdf2ByIterations.computeIfAbsent(iterations, PasswordHashing::pbkdf2)
+                    .matches(rawPassword, prefixEncodedPassword.substring(end + 1));
+        }
+    }
+}
@@ -1,22 +0,0 @@
-package dev.roy.coinkeeper.security.util;
-
-import lombok.Getter;
-import org.springframework.stereotype.Component;
-
-import java.security.KeyPair;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-
-@Getter
-@Component
-public class RSAKeyProperties {
-
-    private final RSAPublicKey publicKey;
-    private final RSAPrivateKey privateKey;
-
-    public RSAKeyProperties() {
-        KeyPair keyPair = KeyGeneratorUtility.generateRSAKeys();
-        this.privateKey = (RSAPrivateKey) keyPair.getPrivate();
-        this.publicKey = (RSAPublicKey) keyPair.getPublic();
-    }
-}
@@ -0,0 +1,57 @@
+package dev.roy.coinkeeper.security.util;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Signs every token with the configured signing key. Unlike {@code NimbusJwtEncoder}, which looks up the key and
+ * builds a signer per token and only knows RSA and EC keys, the signer is created once and may be an Ed25519 one.
+ * The header is always derived from the signing key, a header passed by the caller must use the same algorithm.
+ */
+public class SignerJwtEncoder implements JwtEncoder {
+
+    private final JwtSigningKeys keys;
+    private final JWSHeader header;
+
+    public SignerJwtEncoder(JwtSigningKeys keys) {
+        this.keys = keys;
+        this.header = new JWSHeader.Builder(keys.getAlgorithm())
+                .type(JOSEObjectType.JWT)
+                .keyID(keys.getSigningKey().getKeyID())
+                .build();
+    }
+
+    @Override
+    public Jwt encode(JwtEncoderParameters parameters) {
+        if (parameters.getJwsHeader() != null
+                && !header.getAlgorithm().getName().equals(parameters.getJwsHeader().getAlgorithm().getName())) {
+            throw new JwtEncodingException("Tokens are signed with " + header.getAlgorithm());
+        }
+        JwtClaimsSet claims = parameters.getClaims();
+        JWTClaimsSet.Builder claimsSet = new JWTClaimsSet.Builder();
+        // Nimbus writes dates as seconds since the epoch, it does not know about Instant
+        claims.getClaims().forEach((name, value) ->
+                claimsSet.claim(name, value instanceof Instant instant ? Date.from(instant) : value));
+        SignedJWT signedJwt = new SignedJWT(header, claimsSet.build());
+        try {
+            signedJwt.sign(keys.getSigner());
+        } catch (JOSEException e) {
+            throw new JwtEncodingException("Unable to sign the JWT: " + e.getMessage(), e);
+        }
+        return Jwt.withTokenValue(signedJwt.serialize())
+                .headers(headers -> headers.putAll(header.toJSONObject()))
+                .claims(claimsMap -> claimsMap.putAll(claims.getClaims()))
+                .build();
+    }
+}
@@ -1,16 +1,27 @@
 package dev.roy.coinkeeper.service;
 
+import dev.roy.coinkeeper.config.CacheConfig;
+import dev.roy.coinkeeper.config.ReplicaReads;
+import dev.roy.coinkeeper.dto.BudgetMemberRow;
 import dev.roy.coinkeeper.dto.BudgetRequestDTO;
 import dev.roy.coinkeeper.dto.BudgetResponseDTO;
+import dev.roy.coinkeeper.dto.BudgetRow;
+import dev.roy.coinkeeper.dto.CursorPage;
 import dev.roy.coinkeeper.dto.Member;
 import dev.roy.coinkeeper.entity.Budget;
 import dev.roy.coinkeeper.entity.User;
 import dev.roy.coinkeeper.exception.BudgetNotFoundException;
 import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.security.service.BudgetAccessService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +30,10 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -27,8 +41,14 @@ import java.util.Optional;
 @Slf4j
 public class BudgetService {
 
+    private static final String OPEN_DATE = "openDate";
+
     private final UserService userService;
     private final BudgetRepository budgetRepository;
+    private final LedgerService ledgerService;
+    private final SpendingRollupService rollupService;
+    private final CategorySketchService categorySketchService;
+    private final BudgetAccessService budgetAccessService;
 
     public BudgetResponseDTO addBudget(BudgetRequestDTO dto) {
         Integer userId = dto.userId();
@@ -60,17 +80,36 @@ public class BudgetService {
                 savedBudget.getOpenDate(), userId, getMembers(savedBudget));
     }
 
+    // Cached reads go to the primary, and are not cached when they joined a transaction already on the replica
+    @Cacheable(cacheNames = CacheConfig.BUDGETS, key = "#budgetId", unless = ReplicaReads.SERVED_BY_REPLICA)
+    @Transactional(readOnly = true)
     public BudgetResponseDTO findBudgetById(Integer budgetId) {
-        Budget budget = getBudget(budgetId);
-        return new BudgetResponseDTO(budget.getId(), budget.getName(), budget.getType(), budget.getGoal(),
-                budget.getOpenDate(), budget.getUser().getId(), getMembers(budget));
+        return ReplicaReads.fromPrimary(() -> {
+            Budget budget = getBudget(budgetId);
+            return new BudgetResponseDTO(budget.getId(), budget.getName(), budget.getType(), budget.getGoal(),
+                    budget.getOpenDate(), budget.getUser().getId(), getMembers(budget));
+        });
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BUDGETS, key = "#budgetId"),
+            @CacheEvict(cacheNames = CacheConfig.BUDGET_ROSTERS, key = "#budgetId")
+    })
     public void deleteBudgetById(Integer budgetId) {
         Budget budget = getBudget(budgetId);
+        List<Integer> rosterIds = new ArrayList<>(budget.getMembers().stream().map(User::getId).toList());
+        rosterIds.add(budget.getUser().getId());
         budgetRepository.delete(budget);
+        budgetAccessService.evict(rosterIds);
+        ledgerService.deleteBudget(budgetId);
+        rollupService.deleteBudget(budgetId);
+        categorySketchService.invalidate(budgetId, null);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BUDGETS, key = "#budgetId"),
+            @CacheEvict(cacheNames = CacheConfig.BUDGET_ROSTERS, key = "#budgetId")
+    })
     public BudgetResponseDTO updateBudgetById(Integer budgetId, BudgetRequestDTO dto) {
         Budget existingBudget = getBudget(budgetId);
         if (dto.name() != null) {
@@ -83,6 +122,8 @@ public class BudgetService {
             existingBudget.setGoal(dto.goal());
         }
         if (dto.memberEmails() != null) {
+            // Removed members may still be remembered as having access
+            budgetAccessService.evict(existingBudget.getMembers().stream().map(User::getId).toList());
             if (dto.memberEmails().isEmpty()) {
                 existingBudget.setMembers(new ArrayList<>());
             } else {
@@ -95,26 +136,65 @@ public class BudgetService {
                 updatedBudget.getGoal(), updatedBudget.getOpenDate(), updatedBudget.getUser().getId(), getMembers(updatedBudget));
     }
 
+    @Transactional(readOnly = true)
     public Page<BudgetResponseDTO> findAllBudgets(int pageNo, int pageSize) {
         PageRequest page = PageRequest.of(pageNo, pageSize);
-        Page<Budget> budgets = budgetRepository.findAll(page);
-        return budgets
-                .map(budget -> new BudgetResponseDTO(budget.getId(), budget.getName(), budget.getType(),
-                        budget.getGoal(), budget.getOpenDate(), budget.getUser().getId(), getMembers(budget)));
+        return toResponses(budgetRepository.findAllRows(page));
     }
 
+    @Transactional(readOnly = true)
     public Page<BudgetResponseDTO> findAllBudgetsByUser(Integer userId, int pageNo, int pageSize, boolean members) {
-        User user = userService.getUser(userId);
-        PageRequest pageRequest = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, "openDate"));
-        Page<Budget> budgets;
+        userService.verifyUserExists(userId);
+        PageRequest pageRequest = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, OPEN_DATE));
+        Page<BudgetRow> budgets;
         if (members) {
-            budgets = budgetRepository.findByMembers(List.of(user), pageRequest);
+            budgets = budgetRepository.findRowsByMemberId(userId, pageRequest);
         } else {
-            budgets = budgetRepository.findByUser(user, pageRequest);
+            budgets = budgetRepository.findRowsByOwnerId(userId, pageRequest);
+        }
+        return toResponses(budgets);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BudgetResponseDTO> scrollBudgetsVisibleToUser(Integer userId, String cursor, int pageSize) {
+        userService.verifyUserExists(userId);
+        log.info("Scroll budgets visible to user: {}", userId);
+        ScrollPosition position = Cursors.decode(cursor, OPEN_DATE);
+        // One extra row tells whether there is a next page
+        List<BudgetRow> rows = position.isInitial()
+                ? budgetRepository.findFirstRowsVisibleToUser(userId, Limit.of(pageSize + 1))
+                : budgetRepository.findRowsVisibleToUserBefore(userId, Cursors.timestampOf(position, OPEN_DATE),
+                Cursors.idOf(position), Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<BudgetRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+        Map<Integer, List<Member>> members = getMembersByBudget(page);
+        List<BudgetResponseDTO> content = page.stream().map(row -> toResponse(row, members)).toList();
+        String nextCursor = null;
+        if (hasNext) {
+            BudgetRow last = page.get(page.size() - 1);
+            nextCursor = Cursors.encode(last.openDate(), last.budgetId());
+        }
+        return new CursorPage<>(content, nextCursor, hasNext);
+    }
+
+    private Page<BudgetResponseDTO> toResponses(Page<BudgetRow> rows) {
+        Map<Integer, List<Member>> members = getMembersByBudget(rows.getContent());
+        return rows.map(row -> toResponse(row, members));
+    }
+
+    private Map<Integer, List<Member>> getMembersByBudget(List<BudgetRow> rows) {
+        // The members of the whole page are read with a single projection query
+        if (rows.isEmpty()) {
+            return Collections.emptyMap();
         }
-        return budgets
-                .map(budget -> new BudgetResponseDTO(budget.getId(), budget.getName(), budget.getType(),
-                        budget.getGoal(), budget.getOpenDate(), budget.getUser().getId(), getMembers(budget)));
+        return budgetRepository.findMemberRows(rows.stream().map(BudgetRow::budgetId).toList()).stream()
+                .collect(Collectors.groupingBy(BudgetMemberRow::budgetId,
+                        Collectors.mapping(row -> new Member(row.userId(), row.email()), Collectors.toList())));
+    }
+
+    private static BudgetResponseDTO toResponse(BudgetRow row, Map<Integer, List<Member>> members) {
+        return new BudgetResponseDTO(row.budgetId(), row.name(), row.type(), row.goal(), row.openDate(), row.userId(),
+                members.getOrDefault(row.budgetId(), Collections.emptyList()));
     }
 
     protected Budget getBudget(Integer budgetId) {
@@ -125,6 +205,32 @@ public class BudgetService {
         return budgetOpt.get();
     }
 
+    protected Optional<Budget> findBudget(Integer budgetId) {
+        return budgetRepository.findById(budgetId);
+    }
+
+    protected Budget getBudgetReference(Integer budgetId) {
+        // Only the id of the proxy is read when it is used as an association, so no query is issued
+        return budgetRepository.getReferenceById(budgetId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.BUDGET_ROSTERS, key = "#budgetId", unless = ReplicaReads.SERVED_BY_REPLICA)
+    @Transactional(readOnly = true)
+    public Set<String> getRosterEmails(Integer budgetId) {
+        // The owner is always part of the roster, so an empty result means the budget does not exist
+        List<String> emails = ReplicaReads.fromPrimary(() -> budgetRepository.findRosterEmails(budgetId));
+        if (emails.isEmpty()) {
+            throw new BudgetNotFoundException("Budget with id: " + budgetId + " not found");
+        }
+        return Set.copyOf(emails);
+    }
+
+    protected void verifyBudgetExists(Integer budgetId) {
+        if (!budgetRepository.existsById(budgetId)) {
+            throw new BudgetNotFoundException("Budget with id: " + budgetId + " not found");
+        }
+    }
+
     private static List<Member> getMembers(Budget budget) {
         if (budget.getMembers() == null || budget.getMembers().isEmpty()) {
             return Collections.emptyList();
@@ -135,6 +241,6 @@ public class BudgetService {
     private List<User> filterMembersExceptOwner(BudgetRequestDTO dto, User owner) {
         List<User> members = dto.memberEmails().stream().map(userService::getUser).toList();
         // A check to filter out members excluding the owner
-        return members.stream().filter(user -> !user.equals(owner)).toList();
+        return members.stream().filter(user -> !user.getId().equals(owner.getId())).toList();
     }
 }
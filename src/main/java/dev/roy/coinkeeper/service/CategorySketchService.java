@@ -0,0 +1,120 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.CategorySpend;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds an in-memory heavy hitters sketch of all-time spend per category for recently used budgets and users.
+ * Sketches are seeded from the database on first use, kept up to date on every debit and rebuilt after a
+ * transaction is changed or removed, or once they are older than the refresh interval. Debits and invalidations
+ * are applied once the writing transaction commits, so a rolled back write never reaches a sketch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategorySketchService {
+
+    private static final LocalDateTime ALL_TIME_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime ALL_TIME_END = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    @Value("${analytics.category-sketch.capacity:64}")
+    private int capacity;
+    @Value("${analytics.category-sketch.max-sketches:10000}")
+    private int maxSketches;
+    @Value("${analytics.category-sketch.refresh-interval:PT10M}")
+    private Duration refreshInterval;
+
+    private final TransactionRepository transactionRepository;
+
+    private final Map<String, SpaceSavingSketch> sketches = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SpaceSavingSketch> eldest) {
+                    return size() > maxSketches;
+                }
+            });
+
+    public List<CategorySpend> topByBudget(Integer budgetId, int limit) {
+        return sketch(budgetKey(budgetId), () -> transactionRepository.findTopCategoriesByBudget(budgetId,
+                TransactionType.DEBIT, ALL_TIME_START, ALL_TIME_END, Limit.of(capacity))).top(limit);
+    }
+
+    public List<CategorySpend> topByUser(Integer userId, int limit) {
+        return sketch(userKey(userId), () -> transactionRepository.findTopCategoriesByUser(userId,
+                TransactionType.DEBIT, ALL_TIME_START, ALL_TIME_END, Limit.of(capacity))).top(limit);
+    }
+
+    public void recordDebit(Integer budgetId, Integer userId, String category, double amount) {
+        afterCommit(() -> offer(budgetId, userId, category, amount));
+    }
+
+    public void invalidate(Integer budgetId, Integer userId) {
+        afterCommit(() -> {
+            sketches.remove(budgetKey(budgetId));
+            if (userId != null) {
+                sketches.remove(userKey(userId));
+            }
+        });
+    }
+
+    private void offer(Integer budgetId, Integer userId, String category, double amount) {
+        String item = category == null ? "" : category;
+        SpaceSavingSketch budgetSketch = sketches.get(budgetKey(budgetId));
+        if (budgetSketch != null) {
+            budgetSketch.offer(item, amount);
+        }
+        SpaceSavingSketch userSketch = sketches.get(userKey(userId));
+        if (userSketch != null) {
+            userSketch.offer(item, amount);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private SpaceSavingSketch sketch(String key, Supplier<List<CategorySpend>> seed) {
+        SpaceSavingSketch sketch = sketches.get(key);
+        if (sketch != null && sketch.ageNanos() < refreshInterval.toNanos()) {
+            return sketch;
+        }
+        log.info("Seeding category sketch: {}", key);
+        SpaceSavingSketch seeded = new SpaceSavingSketch(capacity);
+        seed.get().forEach(spend -> seeded.offer(spend.category(), spend.total()));
+        sketches.put(key, seeded);
+        return seeded;
+    }
+
+    private static String budgetKey(Integer budgetId) {
+        return "budget:" + budgetId;
+    }
+
+    private static String userKey(Integer userId) {
+        return "user:" + userId;
+    }
+}
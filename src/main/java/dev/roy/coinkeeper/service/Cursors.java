@@ -0,0 +1,52 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.exception.InvalidCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes a (timestamp, id) keyset position as an opaque, URL safe continuation token.
+ */
+final class Cursors {
+
+    private static final String SEPARATOR = "|";
+
+    private Cursors() {}
+
+    static ScrollPosition decode(String cursor, String timestampProperty) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(timestampProperty, LocalDateTime.parse(decoded.substring(0, separator)));
+            keys.put("id", Integer.valueOf(decoded.substring(separator + 1)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    static String encode(LocalDateTime timestamp, Integer id) {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Only defined past the first page, which callers read without a keyset predicate
+    static LocalDateTime timestampOf(ScrollPosition position, String timestampProperty) {
+        return (LocalDateTime) ((KeysetScrollPosition) position).getKeys().get(timestampProperty);
+    }
+
+    static Integer idOf(ScrollPosition position) {
+        return (Integer) ((KeysetScrollPosition) position).getKeys().get("id");
+    }
+}
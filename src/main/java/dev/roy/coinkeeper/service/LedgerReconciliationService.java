@@ -0,0 +1,87 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.LedgerDrift;
+import dev.roy.coinkeeper.dto.LedgerKeyTotal;
+import dev.roy.coinkeeper.dto.LedgerReconciliationReport;
+import dev.roy.coinkeeper.entity.LedgerBalance;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.repository.LedgerBalanceRepository;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerReconciliationService {
+
+    private static final double TOLERANCE = 0.005;
+
+    private final TransactionRepository transactionRepository;
+    private final LedgerBalanceRepository ledgerRepository;
+    private final LedgerService ledgerService;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Compares the ledger against the raw transactions and rebuilds every key that has drifted.
+     */
+    @Scheduled(initialDelayString = "${ledger.reconciliation.initial-delay:PT1M}",
+            fixedDelayString = "${ledger.reconciliation.interval:PT24H}")
+    public LedgerReconciliationReport reconcile() {
+        log.info("Ledger reconciliation started");
+        Map<LedgerKey, Double> expected = toMap(transactionRepository.sumAmountByKey());
+        Map<LedgerKey, Double> actual = toMap(ledgerRepository.sumTotalByKey());
+
+        List<LedgerKey> keys = new ArrayList<>(expected.keySet());
+        actual.keySet().stream().filter(key -> !expected.containsKey(key)).forEach(keys::add);
+
+        List<LedgerDrift> drifts = new ArrayList<>();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        for (LedgerKey key : keys) {
+            double expectedTotal = expected.getOrDefault(key, 0D);
+            double actualTotal = actual.getOrDefault(key, 0D);
+            if (Math.abs(expectedTotal - actualTotal) <= TOLERANCE) {
+                continue;
+            }
+            LedgerDrift drift = template.execute(status -> rebuild(key));
+            if (drift != null) {
+                log.warn("Ledger drift for budget: {}, user: {}, type: {} expected {} but was {}",
+                        drift.budgetId(), drift.userId(), drift.type(), drift.expected(), drift.actual());
+                drifts.add(drift);
+            }
+        }
+        log.info("Ledger reconciliation completed, {} keys checked, {} rebuilt", keys.size(), drifts.size());
+        return new LedgerReconciliationReport(keys.size(), drifts);
+    }
+
+    private LedgerDrift rebuild(LedgerKey key) {
+        // Lock the stripes before summing the transactions, so a writer that has already
+        // posted its delta is either fully visible here or applies it after the rebuild
+        List<LedgerBalance> stripes = ledgerRepository.findByBudgetIdAndUserIdAndType(key.budgetId(), key.userId(), key.type());
+        double actual = stripes.stream().mapToDouble(LedgerBalance::getTotal).sum();
+        double expected = transactionRepository.sumAmount(key.budgetId(), key.userId(), key.type());
+        if (Math.abs(expected - actual) <= TOLERANCE) {
+            return null;
+        }
+        ledgerService.replaceTotal(key.budgetId(), key.userId(), key.type(), stripes, expected);
+        return new LedgerDrift(key.budgetId(), key.userId(), key.type(), expected, actual);
+    }
+
+    private static Map<LedgerKey, Double> toMap(List<LedgerKeyTotal> totals) {
+        Map<LedgerKey, Double> map = new HashMap<>();
+        totals.forEach(total -> map.put(new LedgerKey(total.budgetId(), total.userId(), total.type()), total.total()));
+        return map;
+    }
+
+    private record LedgerKey(Integer budgetId, Integer userId, TransactionType type) {
+    }
+}
@@ -0,0 +1,107 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.TransactionTypeTotal;
+import dev.roy.coinkeeper.dto.budgetdetails.MemberTypeTotal;
+import dev.roy.coinkeeper.entity.LedgerBalance;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.repository.LedgerBalanceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerService {
+
+    @Value("${ledger.stripes:8}")
+    private int stripes;
+
+    private final LedgerBalanceRepository ledgerRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Adds the delta to the running total of a budget member, in the caller's unit of work.
+     * A random stripe is picked so that concurrent posts to the same budget update different rows.
+     */
+    public void record(Integer budgetId, Integer userId, TransactionType type, double delta) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        if (ledgerRepository.addToTotal(budgetId, userId, type, stripe, delta) > 0) {
+            return;
+        }
+        createMissingStripes(budgetId, userId, type);
+        if (ledgerRepository.addToTotal(budgetId, userId, type, stripe, delta) == 0) {
+            throw new IllegalStateException("Ledger stripe " + stripe + " missing for budget: " + budgetId);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionTypeTotal> getTotalsByBudget(Integer budgetId) {
+        return ledgerRepository.sumTotalByTypeForBudget(budgetId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionTypeTotal> getTotalsByUser(Integer userId) {
+        return ledgerRepository.sumTotalByTypeForUser(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MemberTypeTotal> getMemberTotalsByBudget(Integer budgetId) {
+        return ledgerRepository.sumTotalByMemberForBudget(budgetId);
+    }
+
+    public void deleteBudget(Integer budgetId) {
+        log.info("Removing ledger balances for budget: {}", budgetId);
+        ledgerRepository.deleteByBudgetId(budgetId);
+    }
+
+    /**
+     * Replaces the stripes of a key with a single total. The caller must hold the row locks of the key.
+     */
+    protected void replaceTotal(Integer budgetId, Integer userId, TransactionType type,
+                                List<LedgerBalance> existing, double total) {
+        ledgerRepository.deleteAllInBatch(existing);
+        if (total == 0) {
+            return;
+        }
+        ledgerRepository.saveAll(newStripes(budgetId, userId, type, IntStream.range(0, stripes).boxed().toList(), total));
+    }
+
+    private void createMissingStripes(Integer budgetId, Integer userId, TransactionType type) {
+        // Stripes are created in their own transaction so that two writers racing on the first
+        // transaction of a member only lose the insert, not their whole unit of work
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            template.executeWithoutResult(status -> {
+                List<Integer> existing = ledgerRepository.findStripes(budgetId, userId, type);
+                List<Integer> missing = IntStream.range(0, stripes).boxed().filter(s -> !existing.contains(s)).toList();
+                ledgerRepository.saveAll(newStripes(budgetId, userId, type, missing, 0));
+            });
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Ledger stripes for budget: {} and user: {} created concurrently", budgetId, userId);
+        }
+    }
+
+    private static List<LedgerBalance> newStripes(Integer budgetId, Integer userId, TransactionType type,
+                                                  List<Integer> stripeNumbers, double firstStripeTotal) {
+        List<LedgerBalance> balances = new ArrayList<>();
+        for (Integer stripe : stripeNumbers) {
+            double total = stripe == 0 ? firstStripeTotal : 0;
+            balances.add(new LedgerBalance(null, budgetId, userId, type, stripe, total));
+        }
+        return balances;
+    }
+}
@@ -0,0 +1,242 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.OutgoingMail;
+import dev.roy.coinkeeper.exception.MailQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound mail goes through a bounded queue drained by a few workers. Each worker sends what has piled up
+ * as one batch over a single SMTP connection, and failed messages are queued again with exponential backoff.
+ * Queue depth is published as {@code mail.queue.size} and the time to send a batch as {@code mail.send}.
+ * The future returned by {@link #enqueue} completes once the SMTP server has accepted the message, or fails
+ * when the message is given up on, so callers that must not lose a message can wait for it.
+ */
+@Component
+@Slf4j
+public class MailQueue {
+
+    private static final String FROM = "Coin-Keeper@coin-keeper.dev";
+
+    private record Pending(OutgoingMail mail, int attempt, CompletableFuture<Void> sent) {
+    }
+
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retries;
+    // Retries waiting for their backoff, so shutdown can fail them instead of leaving their callers waiting
+    private final Set<Pending> scheduledRetries = ConcurrentHashMap.newKeySet();
+    private final Timer sendTimer;
+    private final Counter droppedCounter;
+    private final int batchSize;
+    private final Duration batchLinger;
+    private final Duration enqueueTimeout;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private volatile boolean running = true;
+
+    public MailQueue(JavaMailSender mailSender, MeterRegistry meterRegistry,
+                     @Value("${mail.queue.capacity:1000}") int capacity,
+                     @Value("${mail.queue.enqueue-timeout:PT1S}") Duration enqueueTimeout,
+                     @Value("${mail.workers:2}") int workerCount,
+                     @Value("${mail.batch.size:50}") int batchSize,
+                     @Value("${mail.batch.linger:PT0.05S}") Duration batchLinger,
+                     @Value("${mail.retry.max-attempts:5}") int maxAttempts,
+                     @Value("${mail.retry.backoff:PT2S}") Duration backoff) {
+        this.mailSender = mailSender;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.enqueueTimeout = enqueueTimeout;
+        this.batchSize = batchSize;
+        this.batchLinger = batchLinger;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        Gauge.builder("mail.queue.size", queue, BlockingQueue::size)
+                .description("Emails waiting to be sent")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("mail.send")
+                .description("Time to send one batch of emails over a single SMTP connection")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("mail.dropped")
+                .description("Emails given up on after the last retry")
+                .register(meterRegistry);
+        this.retries = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-retry-"));
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("mail-sender-"));
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * Waits up to the enqueue timeout for room in the queue, so a burst slows its callers down before failing them.
+     *
+     * @return completes once the message is sent, or exceptionally when it is given up on
+     * @throws MailQueueFullException when the queue is still full after the timeout
+     */
+    public CompletableFuture<Void> enqueue(OutgoingMail mail) {
+        Pending pending = new Pending(mail, 1, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MailQueueFullException("Too many emails waiting to be sent, please try again shortly");
+            }
+            return pending.sent();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailQueueFullException("Interrupted while waiting for room in the mail queue");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        retries.shutdownNow();
+        retries.awaitTermination(1, TimeUnit.SECONDS);
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        if (!queue.isEmpty() || !scheduledRetries.isEmpty()) {
+            log.warn("Mail queue stopped with {} emails not sent", queue.size() + scheduledRetries.size());
+            MailSendException stopped = new MailSendException("Mail queue stopped before the email was sent");
+            queue.forEach(pending -> pending.sent().completeExceptionally(stopped));
+            scheduledRetries.forEach(pending -> pending.sent().completeExceptionally(stopped));
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                List<Pending> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Mail worker failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Blocks for the first message, then lingers briefly so a burst leaves in one batch instead of one by one
+    private List<Pending> nextBatch() throws InterruptedException {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        Pending first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + batchLinger.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        Map<MimeMessage, Pending> messages = new IdentityHashMap<>();
+        for (Pending pending : batch) {
+            try {
+                messages.put(toMimeMessage(pending.mail()), pending);
+            } catch (MessagingException e) {
+                log.error("Dropping email to {} that could not be built: {}", pending.mail().to(), e.getMessage());
+                droppedCounter.increment();
+                pending.sent().completeExceptionally(e);
+            }
+        }
+        try {
+            // JavaMailSender connects once and sends every message of the batch over that connection
+            sendTimer.record(() -> mailSender.send(messages.keySet().toArray(MimeMessage[]::new)));
+            log.info("Sent {} emails", messages.size());
+            messages.values().forEach(pending -> pending.sent().complete(null));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                messages.values().forEach(pending -> retry(pending, e));
+            } else {
+                messages.forEach((message, pending) -> {
+                    Exception cause = failed.get(message);
+                    if (cause == null) {
+                        pending.sent().complete(null);
+                    } else {
+                        retry(pending, cause);
+                    }
+                });
+            }
+        } catch (MailException e) {
+            messages.values().forEach(pending -> retry(pending, e));
+        }
+    }
+
+    private void retry(Pending pending, Exception cause) {
+        if (pending.attempt() >= maxAttempts) {
+            log.error("Giving up on email to {} after {} attempts: {}", pending.mail().to(), pending.attempt(),
+                    cause.getMessage());
+            droppedCounter.increment();
+            pending.sent().completeExceptionally(cause);
+            return;
+        }
+        Duration delay = backoff.multipliedBy(1L << (pending.attempt() - 1));
+        log.warn("Sending email to {} failed on attempt {}, retrying in {}: {}", pending.mail().to(),
+                pending.attempt(), delay, cause.getMessage());
+        Pending next = new Pending(pending.mail(), pending.attempt() + 1, pending.sent());
+        scheduledRetries.add(next);
+        retries.schedule(() -> {
+            scheduledRetries.remove(next);
+            // Retries never wait for room, a full queue means the email is given up on
+            if (!queue.offer(next)) {
+                log.error("Giving up on email to {}, the mail queue is full", next.mail().to());
+                droppedCounter.increment();
+                next.sent().completeExceptionally(new MailSendException("Mail queue full, email given up on"));
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private MimeMessage toMimeMessage(OutgoingMail mail) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        mimeMessage.setFrom(new InternetAddress(FROM));
+        mimeMessage.setRecipients(Message.RecipientType.TO, mail.to());
+        mimeMessage.setSubject(mail.subject());
+        mimeMessage.setContent(mail.htmlContent(), "text/html; charset=utf-8");
+        return mimeMessage;
+    }
+}
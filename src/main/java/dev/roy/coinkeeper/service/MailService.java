@@ -1,37 +1,20 @@
 package dev.roy.coinkeeper.service;
 
-import jakarta.mail.Message;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
+import dev.roy.coinkeeper.dto.OutgoingMail;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class MailService {
 
-    private final JavaMailSender emailSender;
-
-    private void sendEmail(String to, String subject, String content) {
-        try {
-            MimeMessage mimeMessage = emailSender.createMimeMessage();
-            mimeMessage.setFrom(new InternetAddress("Coin-Keeper@coin-keeper.dev"));
-            mimeMessage.setRecipients(Message.RecipientType.TO, to);
-            mimeMessage.setSubject(subject);
-            mimeMessage.setContent(content, "text/html; charset=utf-8");
-            emailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            log.error("Error in sending email: {}", e.getMessage());
-        }
-    }
+    private final MailQueue mailQueue;
 
-    @Async
-    public void sendOTPViaEmail(String name, String email, Integer otp) {
+    public CompletableFuture<Void> sendOTPViaEmail(String name, String email, Integer otp) {
         String sub = "Welcome to Coin Keeper";
         String htmlContent =
                 """
@@ -80,7 +63,8 @@ public class MailService {
                               </div>
                             </div>
                         """.formatted(name, otp);
-        sendEmail(email, sub, htmlContent);
-        log.info("Sending OTP via email for user: {}", email);
+        CompletableFuture<Void> sent = mailQueue.enqueue(new OutgoingMail(email, sub, htmlContent));
+        log.info("Queued OTP email for user: {}", email);
+        return sent;
     }
 }
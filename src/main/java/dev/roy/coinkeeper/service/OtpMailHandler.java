@@ -0,0 +1,41 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.OtpIssuedEvent;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.model.OneTimePassword;
+import dev.roy.coinkeeper.security.store.OtpStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OtpMailHandler implements OutboxHandler<OtpIssuedEvent> {
+
+    private final MailService mailService;
+    private final UserRepository userRepository;
+    private final OtpStore otpStore;
+
+    @Override
+    public Class<OtpIssuedEvent> eventType() {
+        return OtpIssuedEvent.class;
+    }
+
+    // Sends the user's current OTP, nothing is left to send once it has been used, replaced or has expired
+    @Override
+    public CompletableFuture<Void> handle(OtpIssuedEvent event) {
+        Optional<User> user = userRepository.findById(event.userId());
+        Optional<OneTimePassword> otp = otpStore.find(event.userId());
+        if (user.isEmpty() || otp.isEmpty() || otp.get().expiry().isBefore(LocalDateTime.now())) {
+            log.info("No current OTP for user {}, skipping its email", event.userId());
+            return CompletableFuture.completedFuture(null);
+        }
+        return mailService.sendOTPViaEmail(user.get().getName(), user.get().getEmail(), otp.get().otp());
+    }
+}
@@ -0,0 +1,20 @@
+package dev.roy.coinkeeper.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Receives the events of one type from the outbox poller. Each batch is handed over in id order, but a failed
+ * event is retried after the events behind it, and ids only roughly follow commit order, so handlers must not
+ * rely on events arriving in the order they were written. Delivery is at least once, so handlers must tolerate
+ * seeing the same event again.
+ */
+public interface OutboxHandler<E> {
+
+    Class<E> eventType();
+
+    /**
+     * The event stays in the outbox until the returned future completes, and is retried if it fails or does not
+     * complete within the delivery timeout.
+     */
+    CompletableFuture<Void> handle(E event);
+}
@@ -0,0 +1,164 @@
+package dev.roy.coinkeeper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.roy.coinkeeper.entity.OutboxEvent;
+import dev.roy.coinkeeper.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Delivers outbox events to their {@link OutboxHandler} on the scheduler thread, so a slow handler never adds
+ * to request latency. A batch is claimed in a short transaction that leases its rows to this poller, handed to
+ * the handlers in id order with no transaction or lock held, and then deleted in a second short transaction once
+ * every handler has confirmed. An event whose handler fails is retried with exponential backoff, without holding
+ * back the events behind it, and removed after the attempt limit. Only the order of attempts within a batch is
+ * guaranteed: ids come from a pooled sequence and do not strictly follow commit order. If the poller dies
+ * mid-batch, the lease runs out and the events are delivered again.
+ */
+@Service
+@Slf4j
+public class OutboxPoller {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OutboxHandler<?>> handlers = new HashMap<>();
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+    // Claims are leased for twice this long, so a batch still waiting on its handlers is never taken over
+    @Value("${outbox.delivery-timeout:PT2M}")
+    private Duration deliveryTimeout;
+    @Value("${outbox.retry.max-attempts:10}")
+    private int maxAttempts;
+    @Value("${outbox.retry.backoff:PT5S}")
+    private Duration backoff;
+
+    public OutboxPoller(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager, List<OutboxHandler<?>> handlers) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (OutboxHandler<?> handler : handlers) {
+            if (this.handlers.put(OutboxService.typeOf(handler.eventType()), handler) != null) {
+                throw new IllegalStateException("More than one outbox handler for " + handler.eventType().getName());
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${outbox.poll.initial-delay:PT5S}", fixedDelayString = "${outbox.poll.interval:PT1S}")
+    public int poll() {
+        int delivered = 0;
+        List<OutboxEvent> events;
+        do {
+            String claim = UUID.randomUUID().toString();
+            events = transactionTemplate.execute(status -> claim(claim));
+            delivered += deliver(events, claim);
+        } while (events.size() == batchSize);
+        if (delivered > 0) {
+            log.info("Outbox poll delivered {} events", delivered);
+        }
+        return delivered;
+    }
+
+    private List<OutboxEvent> claim(String claim) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseEnd = now.plus(deliveryTimeout.multipliedBy(2));
+        List<OutboxEvent> events = outboxEventRepository.lockDueEvents(now, batchSize);
+        for (OutboxEvent event : events) {
+            event.setClaimedBy(claim);
+            event.setAvailableAt(leaseEnd);
+        }
+        return events;
+    }
+
+    private int deliver(List<OutboxEvent> events, String claim) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        // The whole batch is handed over before waiting on any of it, so handlers that queue work can batch it
+        Map<OutboxEvent, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            pending.put(event, dispatch(event));
+        }
+        long deadline = System.nanoTime() + deliveryTimeout.toNanos();
+        List<Long> delivered = new ArrayList<>();
+        Map<OutboxEvent, String> failed = new LinkedHashMap<>();
+        pending.forEach((event, result) -> {
+            try {
+                result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                delivered.add(event.getId());
+            } catch (ExecutionException e) {
+                failed.put(event, String.valueOf(e.getCause().getMessage()));
+            } catch (TimeoutException e) {
+                failed.put(event, "Not delivered within " + deliveryTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.put(event, "Interrupted while waiting for delivery");
+            }
+        });
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.deleteClaimed(delivered, claim);
+            }
+            failed.forEach((event, error) -> fail(event, claim, now, error));
+        });
+        return delivered.size();
+    }
+
+    private CompletableFuture<Void> dispatch(OutboxEvent event) {
+        OutboxHandler<?> handler = handlers.get(event.getType());
+        if (handler == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No outbox handler for " + event.getType()));
+        }
+        try {
+            return dispatch(handler, event.getPayload());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <E> CompletableFuture<Void> dispatch(OutboxHandler<E> handler, String payload) {
+        E event;
+        try {
+            event = objectMapper.readValue(payload, handler.eventType());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload cannot be read as " + handler.eventType().getName(), e);
+        }
+        return handler.handle(event);
+    }
+
+    private void fail(OutboxEvent event, String claim, LocalDateTime now, String error) {
+        int attempts = event.getAttempts() + 1;
+        String lastError = error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (attempts >= maxAttempts) {
+            log.error("Outbox event {} of type {} failed {} times, giving up: {}", event.getId(), event.getType(),
+                    attempts, lastError);
+            outboxEventRepository.deleteClaimed(List.of(event.getId()), claim);
+        } else {
+            Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 16));
+            outboxEventRepository.reschedule(event.getId(), claim, attempts, now.plus(delay), lastError);
+            log.warn("Outbox event {} of type {} failed on attempt {}, retrying in {}: {}", event.getId(),
+                    event.getType(), attempts, delay, lastError);
+        }
+    }
+}
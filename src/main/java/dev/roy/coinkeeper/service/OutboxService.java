@@ -0,0 +1,40 @@
+package dev.roy.coinkeeper.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.roy.coinkeeper.entity.OutboxEvent;
+import dev.roy.coinkeeper.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Records an event for {@link OutboxPoller} to deliver once the caller's transaction commits.
+     * A transaction must already be active, so the event is never written without the change it describes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event cannot be serialized: " + event.getClass().getName(), e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxEventRepository.save(new OutboxEvent(null, typeOf(event.getClass()), payload, now, now, 0, null, null));
+    }
+
+    static String typeOf(Class<?> eventType) {
+        return eventType.getSimpleName();
+    }
+}
@@ -0,0 +1,48 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.CategorySpend;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving heavy hitters sketch. Keeps at most {@code capacity} counters and over-estimates
+ * the weight of a tracked item by at most the weight of the counter it replaced.
+ */
+class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Double> counters = new HashMap<>();
+    private final long createdAt = System.nanoTime();
+
+    SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void offer(String item, double weight) {
+        if (counters.containsKey(item) || counters.size() < capacity) {
+            counters.merge(item, weight, Double::sum);
+            return;
+        }
+        // Replace the smallest counter, the newcomer inherits its weight as the error bound
+        Map.Entry<String, Double> smallest = counters.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow();
+        counters.remove(smallest.getKey());
+        counters.put(item, smallest.getValue() + weight);
+    }
+
+    synchronized List<CategorySpend> top(int limit) {
+        return counters.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> new CategorySpend(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    long ageNanos() {
+        return System.nanoTime() - createdAt;
+    }
+}
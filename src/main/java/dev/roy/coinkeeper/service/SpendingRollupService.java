@@ -0,0 +1,137 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.CategoryTotal;
+import dev.roy.coinkeeper.dto.SpendingBucket;
+import dev.roy.coinkeeper.entity.MonthlyRollup;
+import dev.roy.coinkeeper.entity.RollupMonth;
+import dev.roy.coinkeeper.entity.RollupState;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.repository.MonthlyRollupRepository;
+import dev.roy.coinkeeper.repository.RollupMonthRepository;
+import dev.roy.coinkeeper.repository.RollupStateRepository;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps persisted monthly totals for closed months, so long range monthly series do not rescan old transactions.
+ * Late writes into a month that is already rolled up are applied to its rollup as deltas.
+ * <p>
+ * Rolling up a month and applying a delta serialize on the row of {@link RollupState}: the rollup locks it
+ * exclusively, writers take a shared lock until they commit. A write is therefore either summed by the rollup
+ * or sees the moved boundary and applies its delta, never neither nor both.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendingRollupService {
+
+    private static final Duration BOUNDARY_CACHE_TTL = Duration.ofMinutes(5);
+
+    @Value("${analytics.rollup.grace-days:3}")
+    private int graceDays;
+
+    private final MonthlyRollupRepository rollupRepository;
+    private final RollupMonthRepository rollupMonthRepository;
+    private final RollupStateRepository rollupStateRepository;
+    private final TransactionRepository transactionRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private volatile LocalDateTime rolledUpUntil;
+    private volatile Instant rolledUpUntilReadAt = Instant.MIN;
+
+    @Scheduled(initialDelayString = "${analytics.rollup.initial-delay:PT2M}",
+            fixedDelayString = "${analytics.rollup.interval:PT6H}")
+    public void rollUpClosedMonths() {
+        // A month is closed once the grace period after its end has passed
+        LocalDateTime closedBefore = monthStart(LocalDateTime.now().minusDays(graceDays));
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        // One month per transaction, so writers never wait on the lock for longer than a single month's rollup
+        while (Boolean.TRUE.equals(template.execute(status -> rollUpNextMonth(closedBefore)))) {
+            rolledUpUntilReadAt = Instant.MIN;
+        }
+    }
+
+    /**
+     * Returns the start of the first month that is not rolled up yet, for reads. The value is cached and may lag
+     * behind, which only makes readers compute a few more months from the transactions.
+     */
+    public LocalDateTime getRolledUpUntil() {
+        if (Instant.now().isAfter(rolledUpUntilReadAt.plus(BOUNDARY_CACHE_TTL))) {
+            rolledUpUntil = rollupStateRepository.findById(RollupState.ID)
+                    .map(RollupState::getRolledUpUntil)
+                    .orElse(LocalDateTime.MIN);
+            rolledUpUntilReadAt = Instant.now();
+        }
+        return rolledUpUntil;
+    }
+
+    /**
+     * Applies a write to the rollup of its month if that month is already rolled up. Must run in the writer's
+     * transaction, after the write itself, so the shared lock on the rollup state is held until the write commits.
+     */
+    public void recordDelta(Integer budgetId, LocalDateTime date, TransactionType type, String category, double delta) {
+        LocalDateTime monthStart = monthStart(date);
+        LocalDateTime rolledUpUntil = rollupStateRepository.findWithSharedLockById(RollupState.ID)
+                .map(RollupState::getRolledUpUntil)
+                .orElse(null);
+        if (rolledUpUntil == null || !monthStart.isBefore(rolledUpUntil)) {
+            return;
+        }
+        String rollupCategory = category == null ? "" : category;
+        if (rollupRepository.addToTotal(budgetId, monthStart, type, rollupCategory, delta) == 0) {
+            // Writers racing on a missing row both create it with a zero total, one insert wins and both add to it
+            rollupRepository.insertIfMissing(budgetId, monthStart, type.name(), rollupCategory);
+            rollupRepository.addToTotal(budgetId, monthStart, type, rollupCategory, delta);
+        }
+    }
+
+    public List<SpendingBucket> getMonthlyBuckets(Integer budgetId, LocalDateTime from, LocalDateTime to, boolean byCategory) {
+        return byCategory
+                ? rollupRepository.sumByMonthAndCategory(budgetId, from, to)
+                : rollupRepository.sumByMonth(budgetId, from, to);
+    }
+
+    public void deleteBudget(Integer budgetId) {
+        rollupRepository.deleteByBudgetId(budgetId);
+    }
+
+    static LocalDateTime monthStart(LocalDateTime date) {
+        return date.with(TemporalAdjusters.firstDayOfMonth()).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    private boolean rollUpNextMonth(LocalDateTime closedBefore) {
+        RollupState state = rollupStateRepository.findWithExclusiveLockById(RollupState.ID)
+                .orElseThrow(() -> new IllegalStateException("Rollup state row is missing"));
+        Optional<LocalDateTime> next = Optional.ofNullable(state.getRolledUpUntil())
+                .or(() -> transactionRepository.findEarliestDate().map(SpendingRollupService::monthStart));
+        if (next.isEmpty() || !next.get().isBefore(closedBefore)) {
+            return false;
+        }
+        rollUpMonth(next.get());
+        state.setRolledUpUntil(next.get().plusMonths(1));
+        return true;
+    }
+
+    private void rollUpMonth(LocalDateTime monthStart) {
+        List<CategoryTotal> totals = transactionRepository.sumAmountByCategoryBetween(monthStart, monthStart.plusMonths(1));
+        rollupRepository.saveAll(totals.stream()
+                .map(total -> new MonthlyRollup(null, total.budgetId(), monthStart, total.type(), total.category(), total.total()))
+                .toList());
+        rollupMonthRepository.save(new RollupMonth(monthStart, LocalDateTime.now()));
+        log.info("Rolled up {} budget totals for month starting {}", totals.size(), monthStart);
+    }
+}
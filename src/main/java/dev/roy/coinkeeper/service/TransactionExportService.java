@@ -0,0 +1,89 @@
+package dev.roy.coinkeeper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.roy.coinkeeper.dto.ExportFormat;
+import dev.roy.coinkeeper.dto.TransactionRow;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionExportService {
+
+    private static final String CSV_HEADER = "id,type,amount,category,name,quantity,unit,date,budgetId,budgetName,userId,userName\n";
+
+    private final TransactionRepository transactionRepository;
+    private final BudgetService budgetService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Validates the budget up front and returns a body that writes one row at a time from a
+     * forward only cursor, so memory use does not depend on the size of the budget.
+     */
+    public StreamingResponseBody exportTransactionsByBudget(Integer budgetId, ExportFormat format) {
+        budgetService.verifyBudgetExists(budgetId);
+        return outputStream -> {
+            log.info("Export of transactions for budget: {} as {} started", budgetId, format);
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            template.executeWithoutResult(status -> {
+                try (Stream<TransactionRow> rows = transactionRepository.streamRowsByBudgetId(budgetId)) {
+                    writeRows(rows, format, outputStream);
+                }
+            });
+            log.info("Export of transactions for budget: {} completed", budgetId);
+        };
+    }
+
+    private void writeRows(Stream<TransactionRow> rows, ExportFormat format, OutputStream outputStream) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            rows.forEach(row -> {
+                try {
+                    writer.write(format == ExportFormat.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(TransactionRow row) {
+        return String.join(",",
+                csv(row.id()), csv(row.type()), csv(row.amount()), csv(row.category()), csv(row.name()),
+                csv(row.quantity()), csv(row.unit()), csv(row.date()), csv(row.budgetId()),
+                csv(row.budgetName()), csv(row.userId()), csv(row.userName()));
+    }
+
+    private static String csv(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
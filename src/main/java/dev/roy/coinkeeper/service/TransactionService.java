@@ -1,28 +1,49 @@
 package dev.roy.coinkeeper.service;
 
+import dev.roy.coinkeeper.dto.BucketGranularity;
+import dev.roy.coinkeeper.dto.BudgetResponseDTO;
+import dev.roy.coinkeeper.dto.BulkImportRowResult;
+import dev.roy.coinkeeper.dto.CategorySpend;
+import dev.roy.coinkeeper.dto.CursorPage;
+import dev.roy.coinkeeper.dto.ImportStatus;
+import dev.roy.coinkeeper.dto.SpendingBucket;
 import dev.roy.coinkeeper.dto.TransactionBudgetDTO;
 import dev.roy.coinkeeper.dto.TransactionRequestDTO;
 import dev.roy.coinkeeper.dto.TransactionResponseDTO;
+import dev.roy.coinkeeper.dto.TransactionRow;
+import dev.roy.coinkeeper.dto.TransactionTypeTotal;
 import dev.roy.coinkeeper.dto.TransactionUserDTO;
 import dev.roy.coinkeeper.dto.budgetdetails.BudgetDetailsResponseDTO;
+import dev.roy.coinkeeper.dto.budgetdetails.MemberTypeTotal;
 import dev.roy.coinkeeper.dto.budgetdetails.TotalIncomeAndExpense;
 import dev.roy.coinkeeper.entity.Budget;
 import dev.roy.coinkeeper.entity.Transaction;
 import dev.roy.coinkeeper.entity.TransactionType;
 import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.exception.ImportTooLargeException;
 import dev.roy.coinkeeper.exception.InvalidBudgetException;
+import dev.roy.coinkeeper.exception.InvalidPeriodException;
 import dev.roy.coinkeeper.exception.TransactionNotFoundException;
 import dev.roy.coinkeeper.repository.TransactionRepository;
+import dev.roy.coinkeeper.security.service.BudgetAccessService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -32,46 +53,81 @@ public class TransactionService {
 
     private static final String INCOME = "income";
     private static final String EXPENSE = "expense";
+    private static final String DATE = "date";
+    private static final int HASH_LOOKUP_CHUNK = 1000;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    @Value("${transactions.import.max-rows:1000}")
+    private int maxImportRows;
 
     private final TransactionRepository transactionRepository;
     private final BudgetService budgetService;
     private final UserService userService;
+    private final LedgerService ledgerService;
+    private final SpendingRollupService rollupService;
+    private final CategorySketchService categorySketchService;
+    private final BudgetAccessService budgetAccessService;
+    private final EntityManager entityManager;
+    private final Validator validator;
 
     public TransactionResponseDTO addTransaction(TransactionRequestDTO dto) {
         Integer budgetId = dto.budgetId();
         Integer userId = dto.userId();
-        Budget budget = budgetService.getBudget(budgetId);
+        BudgetResponseDTO budget = budgetService.findBudgetById(budgetId);
         User user = userService.getUser(userId);
-        checkIfBudgetExistsForUser(budget, user);
+        checkIfBudgetExistsForUser(budgetId, userId);
         log.info("Adding transaction for userId {} with budgetId: {} started", userId, budgetId);
-        Transaction transaction = new Transaction();
-        transaction.setBudget(budget);
-        transaction.setUser(user);
-        if (null != dto.date()) {
-            transaction.setDate(dto.date());
-        } else {
-            transaction.setDate(LocalDateTime.now());
-        }
-        transaction.setAmount(dto.amount());
-        transaction.setName(dto.name());
-        transaction.setQuantity(dto.quantity());
-        transaction.setUnit(dto.unit());
-        transaction.setType(TransactionType.CREDIT.name().equals(dto.type().toUpperCase()) ? TransactionType.CREDIT : TransactionType.DEBIT);
-        if (dto.category() != null) {
-            transaction.setCategory(dto.category());
-        }
+        Transaction transaction = toTransaction(dto, budgetService.getBudgetReference(budgetId), user);
 
         Transaction savedTransaction = transactionRepository.save(transaction);
+        ledgerService.record(budgetId, userId, savedTransaction.getType(), savedTransaction.getAmount());
+        rollupService.recordDelta(budgetId, savedTransaction.getDate(), savedTransaction.getType(),
+                savedTransaction.getCategory(), savedTransaction.getAmount());
+        if (savedTransaction.getType() == TransactionType.DEBIT) {
+            categorySketchService.recordDebit(budgetId, userId, savedTransaction.getCategory(), savedTransaction.getAmount());
+        }
         log.info("Transaction for userId {} with budgetId: {} saved", userId, budgetId);
         return new TransactionResponseDTO(savedTransaction.getId(),
                 savedTransaction.getType(), savedTransaction.getAmount(),
                 savedTransaction.getCategory(), savedTransaction.getName(), savedTransaction.getQuantity(),
                 savedTransaction.getUnit(), savedTransaction.getDate(),
-                new TransactionBudgetDTO(savedTransaction.getBudget().getId(), savedTransaction.getBudget().getName()),
+                new TransactionBudgetDTO(budgetId, budget.name()),
                 new TransactionUserDTO(savedTransaction.getUser().getId(), savedTransaction.getUser().getName())
         );
     }
 
+    public List<BulkImportRowResult> importTransactions(List<TransactionRequestDTO> dtos) {
+        if (dtos.size() > maxImportRows) {
+            throw new ImportTooLargeException("At most " + maxImportRows + " transactions can be imported at once, got "
+                    + dtos.size());
+        }
+        log.info("Bulk import of {} transactions started", dtos.size());
+        BulkImportRowResult[] results = new BulkImportRowResult[dtos.size()];
+        Map<Integer, List<Integer>> rowsByBudget = new LinkedHashMap<>();
+        for (int row = 0; row < dtos.size(); row++) {
+            Set<ConstraintViolation<TransactionRequestDTO>> violations = validator.validate(dtos.get(row));
+            if (violations.isEmpty()) {
+                rowsByBudget.computeIfAbsent(dtos.get(row).budgetId(), id -> new ArrayList<>()).add(row);
+            } else {
+                String message = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .collect(Collectors.joining("; "));
+                results[row] = new BulkImportRowResult(row, ImportStatus.REJECTED, null, message);
+            }
+        }
+
+        Map<LedgerKey, Double> ledgerDeltas = new HashMap<>();
+        Map<RollupKey, Double> rollupDeltas = new HashMap<>();
+        rowsByBudget.forEach((budgetId, rows) -> importBudgetRows(budgetId, rows, dtos, results, ledgerDeltas, rollupDeltas));
+        ledgerDeltas.forEach((key, delta) -> ledgerService.record(key.budgetId(), key.userId(), key.type(), delta));
+        rollupDeltas.forEach((key, delta) ->
+                rollupService.recordDelta(key.budgetId(), key.monthStart(), key.type(), key.category(), delta));
+        log.info("Bulk import of {} transactions completed", dtos.size());
+        return Arrays.asList(results);
+    }
+
+    @Transactional(readOnly = true)
     public TransactionResponseDTO findTransactionById(Integer transactionId) {
         log.info("Find transaction by id: {}", transactionId);
         Transaction transaction = getTransaction(transactionId);
@@ -85,11 +141,19 @@ public class TransactionService {
         log.info("Delete transaction for id: {}", transactionId);
         Transaction transaction = getTransaction(transactionId);
         transactionRepository.delete(transaction);
+        ledgerService.record(transaction.getBudget().getId(), transaction.getUser().getId(),
+                transaction.getType(), -transaction.getAmount());
+        rollupService.recordDelta(transaction.getBudget().getId(), transaction.getDate(), transaction.getType(),
+                transaction.getCategory(), -transaction.getAmount());
+        categorySketchService.invalidate(transaction.getBudget().getId(), transaction.getUser().getId());
     }
 
     public TransactionResponseDTO updateTransactionById(Integer transactionId, TransactionRequestDTO dto) {
         Transaction transaction = getTransaction(transactionId);
         log.info("Updating transaction for id: {} started", transactionId);
+        TransactionType previousType = transaction.getType();
+        Float previousAmount = transaction.getAmount();
+        String previousCategory = transaction.getCategory();
         if (dto.type() != null) {
             transaction.setType(TransactionType.CREDIT.name().equals(dto.type().toUpperCase()) ? TransactionType.CREDIT : TransactionType.DEBIT);
         }
@@ -100,6 +164,20 @@ public class TransactionService {
             transaction.setCategory(dto.category());
         }
         Transaction updatedTransaction = transactionRepository.save(transaction);
+        if (previousType != updatedTransaction.getType() || !previousAmount.equals(updatedTransaction.getAmount())) {
+            Integer budgetId = updatedTransaction.getBudget().getId();
+            Integer userId = updatedTransaction.getUser().getId();
+            ledgerService.record(budgetId, userId, previousType, -previousAmount);
+            ledgerService.record(budgetId, userId, updatedTransaction.getType(), updatedTransaction.getAmount());
+        }
+        if (previousType != updatedTransaction.getType() || !previousAmount.equals(updatedTransaction.getAmount())
+                || !Objects.equals(previousCategory, updatedTransaction.getCategory())) {
+            Integer budgetId = updatedTransaction.getBudget().getId();
+            rollupService.recordDelta(budgetId, updatedTransaction.getDate(), previousType, previousCategory, -previousAmount);
+            rollupService.recordDelta(budgetId, updatedTransaction.getDate(), updatedTransaction.getType(),
+                    updatedTransaction.getCategory(), updatedTransaction.getAmount());
+            categorySketchService.invalidate(budgetId, updatedTransaction.getUser().getId());
+        }
         log.info("Updating transaction for id: {} completed", transactionId);
         return new TransactionResponseDTO(updatedTransaction.getId(),
                 updatedTransaction.getType(), updatedTransaction.getAmount(),
@@ -110,60 +188,191 @@ public class TransactionService {
         );
     }
 
+    @Transactional(readOnly = true)
     public Page<TransactionResponseDTO> findAllTransactions(Integer pageNo, Integer pageSize) {
         PageRequest page = PageRequest.of(pageNo, pageSize);
-        Page<Transaction> transactions = transactionRepository.findAll(page);
-        return transactions
-                .map(transaction -> new TransactionResponseDTO(transaction.getId(),
-                        transaction.getType(), transaction.getAmount(),
-                        transaction.getCategory(), transaction.getName(), transaction.getQuantity(),
-                        transaction.getUnit(), transaction.getDate(),
-                        new TransactionBudgetDTO(transaction.getBudget().getId(), transaction.getBudget().getName()),
-                        new TransactionUserDTO(transaction.getUser().getId(), transaction.getUser().getName()))
-                );
+        return transactionRepository.findAllRows(page).map(TransactionService::toResponse);
     }
 
+    @Transactional(readOnly = true)
     public Page<TransactionResponseDTO> findAllTransactionsByBudget(Integer budgetId, int pageNo, int pageSize) {
-        Budget budget = budgetService.getBudget(budgetId);
+        budgetService.findBudgetById(budgetId);
         log.info("Find transaction page for budget: {}", budgetId);
-        PageRequest pageRequest = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, "date"));
-        Page<Transaction> transactions = transactionRepository.findTransactionByBudget(budget, pageRequest);
-        return transactions
-                .map(transaction -> new TransactionResponseDTO(transaction.getId(),
-                        transaction.getType(), transaction.getAmount(),
-                        transaction.getCategory(), transaction.getName(), transaction.getQuantity(),
-                        transaction.getUnit(), transaction.getDate(),
-                        new TransactionBudgetDTO(transaction.getBudget().getId(), transaction.getBudget().getName()),
-                        new TransactionUserDTO(transaction.getUser().getId(), transaction.getUser().getName()))
-                );
+        PageRequest pageRequest = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, DATE));
+        return transactionRepository.findRowsByBudgetId(budgetId, pageRequest).map(TransactionService::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionResponseDTO> scrollTransactionsByBudget(Integer budgetId, String cursor, int pageSize) {
+        budgetService.verifyBudgetExists(budgetId);
+        log.info("Scroll transactions for budget: {}", budgetId);
+        ScrollPosition position = Cursors.decode(cursor, DATE);
+        // One extra row tells whether there is a next page
+        List<TransactionRow> rows = position.isInitial()
+                ? transactionRepository.findFirstRowsByBudgetId(budgetId, Limit.of(pageSize + 1))
+                : transactionRepository.findRowsByBudgetIdBefore(budgetId, Cursors.timestampOf(position, DATE),
+                Cursors.idOf(position), Limit.of(pageSize + 1));
+        return toCursorPage(rows, pageSize);
+    }
+
+    @Transactional(readOnly = true)
     public Map<String, Float> getTotalIncomeAndExpenseByBudget(Integer budgetId) {
-        Budget budget = budgetService.getBudget(budgetId);
-        log.info("Find transaction list for budget: {}", budgetId);
-        List<Transaction> transactions = transactionRepository.findTransactionByBudget(budget);
-        return getTotalIncomeAndExpenseFromTransactions(transactions);
+        budgetService.verifyBudgetExists(budgetId);
+        log.info("Find total income and expense for budget: {}", budgetId);
+        List<TransactionTypeTotal> totals = ledgerService.getTotalsByBudget(budgetId);
+        return getTotalIncomeAndExpenseFromTotals(totals);
     }
 
+    @Transactional(readOnly = true)
     public Page<TransactionResponseDTO> findAllTransactionsByUser(Integer userId, int pageNo, int pageSize) {
-        User user = userService.getUser(userId);
+        userService.verifyUserExists(userId);
         log.info("Find transaction page for user: {}", userId);
-        PageRequest pageRequest = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, "date"));
-        Page<Transaction> transactions = transactionRepository.findTransactionByUser(user, pageRequest);
-        return transactions
-                .map(transaction -> new TransactionResponseDTO(transaction.getId(),
-                        transaction.getType(), transaction.getAmount(),
-                        transaction.getCategory(), transaction.getName(), transaction.getQuantity(),
-                        transaction.getUnit(), transaction.getDate(),
-                        new TransactionBudgetDTO(transaction.getBudget().getId(), transaction.getBudget().getName()),
-                        new TransactionUserDTO(transaction.getUser().getId(), transaction.getUser().getName()))
-                );
+        PageRequest pageRequest = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.DESC, DATE));
+        return transactionRepository.findRowsByUserId(userId, pageRequest).map(TransactionService::toResponse);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionResponseDTO> scrollTransactionsByUser(Integer userId, String cursor, int pageSize) {
+        userService.verifyUserExists(userId);
+        log.info("Scroll transactions for user: {}", userId);
+        ScrollPosition position = Cursors.decode(cursor, DATE);
+        List<TransactionRow> rows = position.isInitial()
+                ? transactionRepository.findFirstRowsByUserId(userId, Limit.of(pageSize + 1))
+                : transactionRepository.findRowsByUserIdBefore(userId, Cursors.timestampOf(position, DATE),
+                Cursors.idOf(position), Limit.of(pageSize + 1));
+        return toCursorPage(rows, pageSize);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Float> getTotalIncomeAndExpenseByUser(Integer userId) {
-        User user = userService.getUser(userId);
-        List<Transaction> transactions = transactionRepository.findTransactionByUser(user);
-        return getTotalIncomeAndExpenseFromTransactions(transactions);
+        userService.verifyUserExists(userId);
+        log.info("Find total income and expense for user: {}", userId);
+        List<TransactionTypeTotal> totals = ledgerService.getTotalsByUser(userId);
+        return getTotalIncomeAndExpenseFromTotals(totals);
+    }
+
+    private void importBudgetRows(Integer budgetId, List<Integer> rows, List<TransactionRequestDTO> dtos,
+                                  BulkImportRowResult[] results, Map<LedgerKey, Double> ledgerDeltas,
+                                  Map<RollupKey, Double> rollupDeltas) {
+        // Lookups return Optional here, an exception thrown through the service proxies would mark the import for rollback
+        Optional<Budget> budgetOpt = budgetService.findBudget(budgetId);
+        if (budgetOpt.isEmpty()) {
+            String message = "Budget with id: " + budgetId + " not found";
+            rows.forEach(row -> results[row] = new BulkImportRowResult(row, ImportStatus.REJECTED, null, message));
+            return;
+        }
+        Budget budget = budgetOpt.get();
+
+        // Membership is checked once per user of the budget instead of once per row
+        Map<Integer, User> members = new HashMap<>();
+        Map<Integer, String> rejectedUsers = new HashMap<>();
+        Map<Integer, Transaction> pending = new LinkedHashMap<>();
+        for (Integer row : rows) {
+            Integer userId = dtos.get(row).userId();
+            if (!members.containsKey(userId) && !rejectedUsers.containsKey(userId)) {
+                Optional<User> userOpt = userService.findUser(userId);
+                if (userOpt.isEmpty()) {
+                    rejectedUsers.put(userId, "User with ID: " + userId + " not found");
+                } else {
+                    if (budgetAccessService.hasAccess(userId, budgetId)) {
+                        members.put(userId, userOpt.get());
+                    } else {
+                        rejectedUsers.put(userId, "Budget Id: " + budgetId + " is invalid for User Id: " + userId);
+                    }
+                }
+            }
+            if (rejectedUsers.containsKey(userId)) {
+                results[row] = new BulkImportRowResult(row, ImportStatus.REJECTED, null, rejectedUsers.get(userId));
+            } else {
+                pending.put(row, toTransaction(dtos.get(row), budget, members.get(userId)));
+            }
+        }
+
+        Set<String> knownHashes = new HashSet<>();
+        List<String> hashes = pending.values().stream().map(Transaction::getContentHash).distinct().toList();
+        for (int from = 0; from < hashes.size(); from += HASH_LOOKUP_CHUNK) {
+            List<String> chunk = hashes.subList(from, Math.min(from + HASH_LOOKUP_CHUNK, hashes.size()));
+            knownHashes.addAll(transactionRepository.findExistingContentHashes(budgetId, chunk));
+        }
+
+        List<Map.Entry<Integer, Transaction>> batch = new ArrayList<>();
+        for (Map.Entry<Integer, Transaction> entry : pending.entrySet()) {
+            if (!knownHashes.add(entry.getValue().getContentHash())) {
+                results[entry.getKey()] = new BulkImportRowResult(entry.getKey(), ImportStatus.DUPLICATE, null,
+                        "Transaction already exists in budget: " + budgetId);
+                continue;
+            }
+            batch.add(entry);
+            if (batch.size() == batchSize) {
+                saveImportBatch(batch, results, ledgerDeltas, rollupDeltas);
+            }
+        }
+        saveImportBatch(batch, results, ledgerDeltas, rollupDeltas);
+    }
+
+    private void saveImportBatch(List<Map.Entry<Integer, Transaction>> batch, BulkImportRowResult[] results,
+                                 Map<LedgerKey, Double> ledgerDeltas, Map<RollupKey, Double> rollupDeltas) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionRepository.saveAll(batch.stream().map(Map.Entry::getValue).toList());
+        // Flushing per batch lets Hibernate send one JDBC batch, clearing keeps the persistence context small
+        entityManager.flush();
+        entityManager.clear();
+        batch.forEach(entry -> {
+            Transaction transaction = entry.getValue();
+            results[entry.getKey()] = new BulkImportRowResult(entry.getKey(), ImportStatus.IMPORTED, transaction.getId(), null);
+            LedgerKey key = new LedgerKey(transaction.getBudget().getId(), transaction.getUser().getId(), transaction.getType());
+            ledgerDeltas.merge(key, transaction.getAmount().doubleValue(), Double::sum);
+            RollupKey rollupKey = new RollupKey(transaction.getBudget().getId(),
+                    SpendingRollupService.monthStart(transaction.getDate()), transaction.getType(), transaction.getCategory());
+            rollupDeltas.merge(rollupKey, transaction.getAmount().doubleValue(), Double::sum);
+            if (transaction.getType() == TransactionType.DEBIT) {
+                categorySketchService.recordDebit(transaction.getBudget().getId(), transaction.getUser().getId(),
+                        transaction.getCategory(), transaction.getAmount());
+            }
+        });
+        batch.clear();
+    }
+
+    private static Transaction toTransaction(TransactionRequestDTO dto, Budget budget, User user) {
+        Transaction transaction = new Transaction();
+        transaction.setBudget(budget);
+        transaction.setUser(user);
+        if (null != dto.date()) {
+            transaction.setDate(dto.date());
+        } else {
+            transaction.setDate(LocalDateTime.now());
+        }
+        transaction.setAmount(dto.amount());
+        transaction.setName(dto.name());
+        transaction.setQuantity(dto.quantity());
+        transaction.setUnit(dto.unit());
+        transaction.setType(TransactionType.CREDIT.name().equals(dto.type().toUpperCase()) ? TransactionType.CREDIT : TransactionType.DEBIT);
+        if (dto.category() != null) {
+            transaction.setCategory(dto.category());
+        }
+        // Hashed with the date as supplied, an undated row gets the current time and would never match itself
+        transaction.setContentHash(Transaction.contentHash(transaction.getType(), dto.amount(), dto.date(),
+                transaction.getCategory(), dto.name(), dto.quantity(), dto.unit(), budget.getId(), user.getId()));
+        return transaction;
+    }
+
+    private static CursorPage<TransactionResponseDTO> toCursorPage(List<TransactionRow> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        List<TransactionRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionRow last = page.get(page.size() - 1);
+            nextCursor = Cursors.encode(last.date(), last.id());
+        }
+        return new CursorPage<>(page.stream().map(TransactionService::toResponse).toList(), nextCursor, hasNext);
+    }
+
+    private static TransactionResponseDTO toResponse(TransactionRow row) {
+        return new TransactionResponseDTO(row.id(), row.type(), row.amount(), row.category(), row.name(),
+                row.quantity(), row.unit(), row.date(), new TransactionBudgetDTO(row.budgetId(), row.budgetName()),
+                new TransactionUserDTO(row.userId(), row.userName()));
     }
 
     private Transaction getTransaction(Integer transactionId) {
@@ -174,66 +383,139 @@ public class TransactionService {
         return transactionOpt.get();
     }
 
-    private void checkIfBudgetExistsForUser(Budget budget, User user) {
-        boolean ownerCheck = budget.getUser().getId().equals(user.getId());
-        boolean memberCheck = budget.getMembers().stream().anyMatch(member -> member.getId().equals(user.getId()));
-
-        if (!ownerCheck && !memberCheck) {
-            throw new InvalidBudgetException("Budget Id: " + budget.getId() + " is invalid for User Id: " + user.getId());
+    private void checkIfBudgetExistsForUser(Integer budgetId, Integer userId) {
+        if (!budgetAccessService.hasAccess(userId, budgetId)) {
+            throw new InvalidBudgetException("Budget Id: " + budgetId + " is invalid for User Id: " + userId);
         }
     }
 
-    private Map<String, Float> getTotalIncomeAndExpenseFromTransactions(List<Transaction> transactions) {
+    private Map<String, Float> getTotalIncomeAndExpenseFromTotals(List<TransactionTypeTotal> totals) {
+        // The sums are read from the ledger, one row per transaction type
         Map<String, Float> totalIncomeAndExpenses = new HashMap<>();
-        transactions.forEach(transaction -> {
-            if (transaction.getType() == TransactionType.CREDIT) {
-                Float income = totalIncomeAndExpenses.getOrDefault(INCOME, 0F);
-                income += transaction.getAmount();
-                totalIncomeAndExpenses.put(INCOME, income);
-            } else {
-                Float expense = totalIncomeAndExpenses.getOrDefault(EXPENSE, 0F);
-                expense += transaction.getAmount();
-                totalIncomeAndExpenses.put(EXPENSE, expense);
-            }
+        totals.forEach(total -> {
+            String key = total.type() == TransactionType.CREDIT ? INCOME : EXPENSE;
+            totalIncomeAndExpenses.merge(key, total.total().floatValue(), Float::sum);
         });
 
         return totalIncomeAndExpenses;
     }
 
+    @Transactional(readOnly = true)
+    public List<SpendingBucket> getSpendingSeries(Integer budgetId, LocalDate from, LocalDate to,
+                                                  BucketGranularity granularity, boolean byCategory) {
+        budgetService.verifyBudgetExists(budgetId);
+        log.info("Find {} spending series for budget: {}", granularity, budgetId);
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        List<SpendingBucket> buckets = new ArrayList<>();
+        if (granularity == BucketGranularity.MONTH) {
+            // Whole months that are already rolled up are answered from the rollups, the edges are computed live
+            LocalDateTime firstWholeMonth = start.equals(SpendingRollupService.monthStart(start))
+                    ? start : SpendingRollupService.monthStart(start).plusMonths(1);
+            LocalDateTime rolledUpUntil = SpendingRollupService.monthStart(end);
+            if (rollupService.getRolledUpUntil().isBefore(rolledUpUntil)) {
+                rolledUpUntil = rollupService.getRolledUpUntil();
+            }
+            if (firstWholeMonth.isBefore(rolledUpUntil)) {
+                buckets.addAll(sumLiveBuckets(budgetId, start, firstWholeMonth, granularity, byCategory));
+                buckets.addAll(rollupService.getMonthlyBuckets(budgetId, firstWholeMonth, rolledUpUntil, byCategory));
+                start = rolledUpUntil;
+            }
+        }
+        buckets.addAll(sumLiveBuckets(budgetId, start, end, granularity, byCategory));
+        return buckets.stream()
+                .map(bucket -> new SpendingBucket(bucket.bucketStart(), bucket.type(),
+                        bucket.category() == null || bucket.category().isEmpty() ? null : bucket.category(), bucket.total()))
+                .sorted(Comparator.comparing(SpendingBucket::bucketStart).thenComparing(SpendingBucket::type))
+                .toList();
+    }
+
+    private List<SpendingBucket> sumLiveBuckets(Integer budgetId, LocalDateTime from, LocalDateTime to,
+                                                BucketGranularity granularity, boolean byCategory) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        // The unit of trunc() is part of the query syntax, so it is taken from the enum and never from user input
+        String bucket = "trunc(t.date, " + granularity.name().toLowerCase() + ")";
+        String category = byCategory ? "coalesce(t.category, '')" : "''";
+        String query = """
+                select new dev.roy.coinkeeper.dto.SpendingBucket(%1$s, t.type, %2$s, sum(t.amount))
+                from Transaction t
+                where t.budget.id = :budgetId and t.date >= :from and t.date < :to
+                group by %1$s, t.type%3$s
+                """.formatted(bucket, category, byCategory ? ", " + category : "");
+        return entityManager.createQuery(query, SpendingBucket.class)
+                .setParameter("budgetId", budgetId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategorySpend> getTopCategoriesByBudget(Integer budgetId, LocalDate from, LocalDate to, int limit,
+                                                        boolean approximate) {
+        checkPeriod(from, to, approximate);
+        budgetService.verifyBudgetExists(budgetId);
+        log.info("Find top {} categories for budget: {}", limit, budgetId);
+        // The sketch tracks all-time spend and answers without touching the database
+        List<CategorySpend> categories = approximate
+                ? categorySketchService.topByBudget(budgetId, limit)
+                : transactionRepository.findTopCategoriesByBudget(budgetId, TransactionType.DEBIT,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), Limit.of(limit));
+        return toCategorySpends(categories);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CategorySpend> getTopCategoriesByUser(Integer userId, LocalDate from, LocalDate to, int limit,
+                                                      boolean approximate) {
+        checkPeriod(from, to, approximate);
+        userService.verifyUserExists(userId);
+        log.info("Find top {} categories for user: {}", limit, userId);
+        List<CategorySpend> categories = approximate
+                ? categorySketchService.topByUser(userId, limit)
+                : transactionRepository.findTopCategoriesByUser(userId, TransactionType.DEBIT,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), Limit.of(limit));
+        return toCategorySpends(categories);
+    }
+
+    // An approximate ranking always covers all time, so a period is rejected rather than silently ignored
+    private static void checkPeriod(LocalDate from, LocalDate to, boolean approximate) {
+        if (approximate && (from != null || to != null)) {
+            throw new InvalidPeriodException("from and to cannot be combined with approximate, which covers all time");
+        }
+        if (!approximate && (from == null || to == null)) {
+            throw new InvalidPeriodException("from and to are required unless approximate is set");
+        }
+    }
+
+    private static List<CategorySpend> toCategorySpends(List<CategorySpend> categories) {
+        return categories.stream()
+                .map(spend -> new CategorySpend(spend.category().isEmpty() ? null : spend.category(), spend.total()))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
     public BudgetDetailsResponseDTO getTransactionSummaryByBudget(Integer budgetId) {
-        Budget budget = budgetService.getBudget(budgetId);
+        Set<String> allBudgetMembers = budgetService.getRosterEmails(budgetId);
         log.info("Find transaction summary for budget: {}", budgetId);
-        List<Transaction> transactions = transactionRepository.findTransactionByBudget(budget);
+        List<MemberTypeTotal> memberTotals = ledgerService.getMemberTotalsByBudget(budgetId);
 
         Map<String, TotalIncomeAndExpense> totalIncomeAndExpenseByUserMap = new HashMap<>();
-
-        // Adding each user's name inside map, this would also skip duplicate names
-        transactions.forEach(transaction -> {
-            String email = transaction.getUser().getEmail();
-            float amount = transaction.getAmount();
-            if (totalIncomeAndExpenseByUserMap.containsKey(email)) {
-                TotalIncomeAndExpense totalIncomeAndExpense = totalIncomeAndExpenseByUserMap.get(email);
-                float existingIncome = totalIncomeAndExpense.income();
-                float existingExpense = totalIncomeAndExpense.expense();
-
-                if (transaction.getType() == TransactionType.CREDIT) {
-                    existingIncome += amount;
-                } else {
-                    existingExpense += amount;
-                }
-
-                totalIncomeAndExpenseByUserMap.put(email, new TotalIncomeAndExpense(existingIncome, existingExpense));
-            } else {
-                if (transaction.getType() == TransactionType.CREDIT) {
-                    totalIncomeAndExpenseByUserMap.put(email, new TotalIncomeAndExpense(amount, 0F));
-                } else {
-                    totalIncomeAndExpenseByUserMap.put(email, new TotalIncomeAndExpense(0F, amount));
-                }
-            }
+        // One row per member and transaction type, so this grows with the members and not the transactions
+        memberTotals.forEach(memberTotal -> {
+            float amount = memberTotal.total().floatValue();
+            TotalIncomeAndExpense total = memberTotal.type() == TransactionType.CREDIT
+                    ? new TotalIncomeAndExpense(amount, 0F)
+                    : new TotalIncomeAndExpense(0F, amount);
+            totalIncomeAndExpenseByUserMap.merge(memberTotal.email(), total, (existing, added) ->
+                    new TotalIncomeAndExpense(existing.income() + added.income(), existing.expense() + added.expense()));
         });
-        Set<String> allBudgetMembers = new HashSet<>();
-        allBudgetMembers.add(budget.getUser().getEmail());
-        allBudgetMembers.addAll(budget.getMembers().stream().map(User::getEmail).toList());
         return new BudgetDetailsResponseDTO(totalIncomeAndExpenseByUserMap, allBudgetMembers);
     }
-}
\ No newline at end of file
+
+    private record LedgerKey(Integer budgetId, Integer userId, TransactionType type) {
+    }
+
+    private record RollupKey(Integer budgetId, LocalDateTime monthStart, TransactionType type, String category) {
+    }
+}
@@ -1,5 +1,6 @@
 package dev.roy.coinkeeper.service;
 
+import dev.roy.coinkeeper.config.CacheConfig;
 import dev.roy.coinkeeper.dto.UserRequestDTO;
 import dev.roy.coinkeeper.dto.UserResponseDTO;
 import dev.roy.coinkeeper.entity.Role;
@@ -9,13 +10,20 @@ import dev.roy.coinkeeper.exception.UserNotFoundException;
 import dev.roy.coinkeeper.exception.UserRoleNotFoundException;
 import dev.roy.coinkeeper.repository.RoleRepository;
 import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.service.RefreshTokenService;
+import dev.roy.coinkeeper.security.store.OtpStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -30,9 +38,19 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final OtpStore otpStore;
     private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
+    private final PlatformTransactionManager transactionManager;
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserResponseDTO addUser(UserRequestDTO dto) {
+        // Hashed before the transaction starts, so no pooled connection waits on BCrypt
+        String password = passwordEncoder.encode(dto.password());
+        return new TransactionTemplate(transactionManager).execute(status -> saveUser(dto, password));
+    }
+
+    private UserResponseDTO saveUser(UserRequestDTO dto, String password) {
         // Check if USER role exists
         Optional<Role> roleOpt = roleRepository.findByName("USER");
         if (roleOpt.isEmpty()) {
@@ -46,24 +64,50 @@ public class UserService {
         }
 
         User user = new User(0,
-                dto.name(), dto.email(), passwordEncoder.encode(dto.password()), dto.picture(),
-                LocalDateTime.now(), false, Set.of(roleOpt.get()), null, null);
+                dto.name(), dto.email(), password, dto.picture(),
+                LocalDateTime.now(), false, Set.of(roleOpt.get()), null);
         User savedUser = userRepository.save(user);
         log.info("User: {} with email: {} added to database", savedUser.getName(), savedUser.getEmail());
         return new UserResponseDTO(savedUser.getId(), savedUser.getName(), savedUser.getEmail(), savedUser.getPicture(), getRolesOfUser(savedUser));
     }
 
+    @Transactional(readOnly = true)
     public UserResponseDTO findUserById(Integer userId) {
-        User user = getUser(userId);
+        Optional<User> userOpt = userRepository.findWithRolesById(userId);
+        if (userOpt.isEmpty()) {
+            throw new UserNotFoundException("User with ID: " + userId + " not found");
+        }
+        User user = userOpt.get();
         return new UserResponseDTO(user.getId(), user.getName(), user.getEmail(), user.getPicture(), getRolesOfUser(user));
     }
 
+    // Budgets and rosters embed member emails, so they are dropped whenever a user changes
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BUDGETS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.BUDGET_ROSTERS, allEntries = true)
+    })
     public void deleteUserById(Integer userId) {
         User user = getUser(userId);
+        // The OTP is removed explicitly, an inverse one-to-one on User would be fetched with every user
+        otpStore.delete(user.getId());
+        refreshTokenService.revokeAll(user);
         userRepository.delete(user);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BUDGETS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.BUDGET_ROSTERS, allEntries = true)
+    })
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserResponseDTO updateUserById(Integer userId, UserRequestDTO dto) {
+        // Hashed before the transaction starts, as in addUser
+        String password = null != dto.password() && !dto.password().isBlank()
+                ? passwordEncoder.encode(dto.password())
+                : null;
+        return new TransactionTemplate(transactionManager).execute(status -> updateUser(userId, dto, password));
+    }
+
+    private UserResponseDTO updateUser(Integer userId, UserRequestDTO dto, String password) {
         User existingUser = getUser(userId);
         if (null != dto.name() && !dto.name().isBlank()) {
             log.info("Updating name");
@@ -77,20 +121,23 @@ public class UserService {
             }
             log.info("Updating email");
             existingUser.setEmail(dto.email());
+            // Refresh grants carry the email as the token subject, the user logs in again to get one for the new email
+            refreshTokenService.revokeAll(existingUser);
         }
         if (null != dto.picture() && !dto.picture().isBlank()) {
             log.info("Updating picture");
             existingUser.setPicture(dto.picture());
         }
-        if (null != dto.password() && !dto.password().isBlank()) {
+        if (null != password) {
             log.info("Updating password");
-            existingUser.setPassword(passwordEncoder.encode(dto.password()));
+            existingUser.setPassword(password);
         }
 
         User updateddUser = userRepository.save(existingUser);
         return new UserResponseDTO(updateddUser.getId(), updateddUser.getName(), updateddUser.getEmail(), updateddUser.getPicture(), getRolesOfUser(updateddUser));
     }
 
+    @Transactional(readOnly = true)
     public Page<UserResponseDTO> findAllUsers(int pageNo, int pageSize) {
         PageRequest page = PageRequest.of(pageNo, pageSize);
         Page<User> users = userRepository.findAll(page);
@@ -105,6 +152,16 @@ public class UserService {
         return userOpt.get();
     }
 
+    public Optional<User> findUser(Integer userId) {
+        return userRepository.findById(userId);
+    }
+
+    public void verifyUserExists(Integer userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User with ID: " + userId + " not found");
+        }
+    }
+
     public User getUser(String email) {
         Optional<User> userOpt = userRepository.findByEmail(email);
         if (userOpt.isEmpty()) {
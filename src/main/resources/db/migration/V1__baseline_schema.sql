@@ -0,0 +1,88 @@
+-- Schema as previously created by Hibernate, existing databases are baselined at this version.
+-- Tables and columns added since then belong in their own migrations, never here.
+create sequence budgets_seq start with 1 increment by 50;
+create sequence refresh_token_seq start with 1 increment by 50;
+create sequence roles_seq start with 1 increment by 50;
+create sequence transactions_seq start with 1 increment by 50;
+create sequence userotp_seq start with 1 increment by 50;
+create sequence users_seq start with 1 increment by 50;
+
+create table users (
+    user_id integer not null,
+    name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    picture varchar(255),
+    register_date timestamp(6),
+    active boolean not null,
+    constraint pk_users primary key (user_id),
+    constraint uk_users_email unique (email)
+);
+
+create table roles (
+    role_id integer not null,
+    name varchar(255),
+    constraint pk_roles primary key (role_id)
+);
+
+create table users_roles (
+    user_id integer not null,
+    role_id integer not null,
+    constraint pk_users_roles primary key (role_id, user_id),
+    constraint fk_users_roles_user foreign key (user_id) references users,
+    constraint fk_users_roles_role foreign key (role_id) references roles
+);
+
+create table userotp (
+    id integer not null,
+    otp integer,
+    expiry timestamp(6),
+    user_id integer,
+    constraint pk_userotp primary key (id),
+    constraint uk_userotp_user unique (user_id),
+    constraint fk_userotp_user foreign key (user_id) references users
+);
+
+create table refresh_token (
+    id integer not null,
+    token varchar(255),
+    expiry timestamp(6),
+    user_id integer,
+    constraint pk_refresh_token primary key (id),
+    constraint uk_refresh_token_user unique (user_id),
+    constraint fk_refresh_token_user foreign key (user_id) references users
+);
+
+create table budgets (
+    budget_id integer not null,
+    name varchar(255),
+    type varchar(255),
+    goal float4,
+    open_date timestamp(6),
+    user_id integer,
+    constraint pk_budgets primary key (budget_id),
+    constraint fk_budgets_user foreign key (user_id) references users
+);
+
+create table budgets_members (
+    budget_id integer not null,
+    user_id integer not null,
+    constraint fk_budgets_members_budget foreign key (budget_id) references budgets,
+    constraint fk_budgets_members_user foreign key (user_id) references users
+);
+
+create table transactions (
+    transaction_id integer not null,
+    type varchar(255) check (type in ('CREDIT', 'DEBIT')),
+    amount float4,
+    date timestamp(6),
+    category varchar(255),
+    name varchar(255),
+    quantity float4,
+    unit varchar(255),
+    budget_id integer,
+    user_id integer,
+    constraint pk_transactions primary key (transaction_id),
+    constraint fk_transactions_budget foreign key (budget_id) references budgets,
+    constraint fk_transactions_user foreign key (user_id) references users
+);
@@ -0,0 +1,21 @@
+-- Running totals per budget member and transaction type, striped to spread concurrent updates
+create sequence ledger_balances_seq start with 1 increment by 50;
+
+create table ledger_balances (
+    ledger_balance_id integer not null,
+    budget_id integer not null,
+    user_id integer not null,
+    type varchar(255) not null check (type in ('CREDIT', 'DEBIT')),
+    stripe integer not null,
+    total float(53) not null,
+    constraint pk_ledger_balances primary key (ledger_balance_id),
+    constraint uk_ledger_balances_key unique (budget_id, user_id, type, stripe)
+);
+
+-- Existing transactions are summed into stripe 0 of each key, the remaining stripes are created on the next write
+insert into ledger_balances (ledger_balance_id, budget_id, user_id, type, stripe, total)
+select nextval('ledger_balances_seq'), totals.budget_id, totals.user_id, totals.type, 0, totals.total
+from (select budget_id, user_id, type, sum(cast(amount as float(53))) as total
+      from transactions
+      where budget_id is not null and user_id is not null and type is not null and amount is not null
+      group by budget_id, user_id, type) totals;
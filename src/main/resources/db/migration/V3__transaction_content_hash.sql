@@ -0,0 +1,2 @@
+-- SHA-256 of the transaction content, used to detect duplicate imports
+alter table transactions add column content_hash varchar(64);
@@ -0,0 +1,29 @@
+-- Persisted monthly totals of closed months
+create sequence monthly_rollups_seq start with 1 increment by 50;
+
+create table monthly_rollups (
+    monthly_rollup_id integer not null,
+    budget_id integer not null,
+    month_start timestamp(6) not null,
+    type varchar(255) not null check (type in ('CREDIT', 'DEBIT')),
+    category varchar(255) not null,
+    total float(53) not null,
+    constraint pk_monthly_rollups primary key (monthly_rollup_id),
+    constraint uk_monthly_rollups_key unique (budget_id, month_start, type, category)
+);
+
+create table rollup_months (
+    month_start timestamp(6) not null,
+    rolled_up_at timestamp(6),
+    constraint pk_rollup_months primary key (month_start)
+);
+
+-- Single row holding the start of the first month not rolled up yet. Writers take a shared lock on it and the
+-- rollup an exclusive one, so a month is never rolled up while a write into it is still in flight
+create table rollup_state (
+    id integer not null,
+    rolled_up_until timestamp(6),
+    constraint pk_rollup_state primary key (id)
+);
+
+insert into rollup_state (id, rolled_up_until) values (1, null);
@@ -0,0 +1,30 @@
+-- Secondary indexes for the repository queries, "if not exists" because ddl-auto may already have created some of them
+
+-- Refresh token rotation looks tokens up by value
+create unique index if not exists idx_refresh_token_token on refresh_token (token);
+
+-- Role lookups by name at registration
+create unique index if not exists idx_roles_name on roles (name);
+
+-- Roles of a user, the primary key leads with role_id
+create index if not exists idx_users_roles_user on users_roles (user_id, role_id);
+
+-- Members of a budget, and budgets shared with a user
+create index if not exists idx_budgets_members_budget on budgets_members (budget_id);
+create index if not exists idx_budgets_members_user on budgets_members (user_id, budget_id);
+
+-- Budgets owned by a user, newest first
+create index if not exists idx_budgets_user_open_date on budgets (user_id, open_date);
+
+-- Transaction pages, scrolls, exports and category breakdowns per budget or per user, newest first
+create index if not exists idx_transactions_budget_date on transactions (budget_id, date);
+create index if not exists idx_transactions_user_date on transactions (user_id, date);
+
+-- Duplicate detection of imported rows
+create index if not exists idx_transactions_budget_hash on transactions (budget_id, content_hash);
+
+-- Monthly rollups and the earliest transaction date, which span all budgets
+create index if not exists idx_transactions_date on transactions (date);
+
+-- Ledger totals per member, the unique key leads with budget_id
+create index if not exists idx_ledger_balances_user on ledger_balances (user_id, type);
@@ -0,0 +1,7 @@
+drop index if exists idx_refresh_token_token;
+alter table refresh_token drop column token;
+
+create unique index idx_refresh_token_token_hash on refresh_token (token_hash);
+
+-- Expired token purge
+create index idx_refresh_token_expiry on refresh_token (expiry);
@@ -0,0 +1,4 @@
+-- Refresh tokens are looked up by their SHA-256, V6_1 hashes the stored tokens and V6_2 drops the plaintext
+alter table refresh_token add column token_hash varchar(64);
+alter table refresh_token add column email varchar(255);
+alter table refresh_token add column roles varchar(255);
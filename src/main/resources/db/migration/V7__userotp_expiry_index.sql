@@ -0,0 +1,2 @@
+-- Expired OTP purge
+create index idx_userotp_expiry on userotp (expiry);
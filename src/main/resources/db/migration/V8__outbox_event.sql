@@ -0,0 +1,17 @@
+-- Transactional outbox, rows are written with the business change and deleted once delivered
+create sequence outbox_event_seq start with 1 increment by 50;
+
+create table outbox_event (
+    id bigint not null,
+    type varchar(255) not null,
+    payload varchar(4000) not null,
+    created_at timestamp(6) not null,
+    available_at timestamp(6) not null,
+    attempts integer not null,
+    last_error varchar(1000),
+    claimed_by varchar(36),
+    constraint pk_outbox_event primary key (id)
+);
+
+-- Poller picks due events in id order, a claim pushes available_at out to the end of its lease
+create index idx_outbox_event_available_at on outbox_event (available_at, id);
@@ -0,0 +1,84 @@
+package dev.roy.coinkeeper.benchmark;
+
+import dev.roy.coinkeeper.entity.Role;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.security.config.SecurityConfig;
+import dev.roy.coinkeeper.security.service.TokenService;
+import dev.roy.coinkeeper.security.util.CachingJwtDecoder;
+import dev.roy.coinkeeper.security.util.JwtSigningKeys;
+import dev.roy.coinkeeper.security.util.KeySetJwtDecoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a token (every login and refresh) and of verifying one (every authenticated request)
+ * for each supported signing algorithm, and of verifying a token the decoder has already seen. Run with {@code mvn -Pbenchmark -DskipTests test -Dbenchmark=JwtBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private TokenService tokenService;
+    private JwtDecoder jwtDecoder;
+    private JwtDecoder cachingJwtDecoder;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtSigningKeys keys = new JwtSigningKeys("", "", "", algorithm, new DefaultResourceLoader());
+        SecurityConfig securityConfig = new SecurityConfig(keys);
+        tokenService = new TokenService(securityConfig.jwtEncoder());
+        jwtDecoder = new KeySetJwtDecoder(keys.getVerificationKeys());
+        cachingJwtDecoder = new CachingJwtDecoder(jwtDecoder, 10_000, new SimpleMeterRegistry());
+        user = new User(1, "Benchmark", "benchmark@coin-keeper.dev", "password", null, LocalDateTime.now(), true,
+                Set.of(new Role(1, "ADMIN"), new Role(2, "USER")), null);
+        token = tokenService.generateJWT(user);
+    }
+
+    @Benchmark
+    public String generateJwt() {
+        return tokenService.generateJWT(user);
+    }
+
+    @Benchmark
+    public Jwt decodeJwt() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeCachedJwt() {
+        return cachingJwtDecoder.decode(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtBenchmark.class.getSimpleName()).build()).run();
+    }
+}
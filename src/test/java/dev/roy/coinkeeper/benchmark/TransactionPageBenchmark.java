@@ -0,0 +1,130 @@
+package dev.roy.coinkeeper.benchmark;
+
+import dev.roy.coinkeeper.Application;
+import dev.roy.coinkeeper.dto.TransactionBudgetDTO;
+import dev.roy.coinkeeper.dto.TransactionResponseDTO;
+import dev.roy.coinkeeper.dto.TransactionUserDTO;
+import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.entity.Transaction;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.service.TransactionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the first scroll page of 50 transactions built from attached entities versus from the JPQL record
+ * projections the service reads, against the embedded test database. Compare {@code gc.alloc.rate.norm} for the bytes allocated per page.
+ * Run with {@code mvn -Pbenchmark -DskipTests test -Dbenchmark=TransactionPageBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionPageBenchmark {
+
+    private static final int TRANSACTIONS = 200;
+    private static final int PAGE_SIZE = 50;
+    // The entity counterpart of the service's first scroll page query
+    private static final String ENTITY_PAGE = """
+            select t from Transaction t join fetch t.budget join fetch t.user
+            where t.budget.id = :budgetId
+            order by t.date desc, t.id desc
+            """;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionService transactionService;
+    private TransactionTemplate readOnly;
+    private Integer budgetId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionService = context.getBean(TransactionService.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        User user = context.getBean(UserRepository.class).save(new User(null, "Benchmark",
+                "page-benchmark@coin-keeper.dev", "password", null, LocalDateTime.now(), true, null, null));
+        Budget budget = context.getBean(BudgetRepository.class).save(new Budget(null, "Household", null,
+                LocalDateTime.now(), null, null, user, new ArrayList<>()));
+        budgetId = budget.getId();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            boolean credit = i % 2 == 0;
+            transactions.add(new Transaction(null, credit ? TransactionType.CREDIT : TransactionType.DEBIT,
+                    credit ? 10F : 2F, LocalDateTime.now().minusMinutes(i), "misc", "item " + i,
+                    null, null, null, budget, user));
+        }
+        context.getBean(TransactionRepository.class).saveAll(transactions);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TransactionResponseDTO> pageFromEntities() {
+        return readOnly.execute(status -> entityManager.createQuery(ENTITY_PAGE, Transaction.class)
+                .setParameter("budgetId", budgetId)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream().map(TransactionPageBenchmark::toResponse).toList());
+    }
+
+    @Benchmark
+    public List<TransactionResponseDTO> pageFromProjections() {
+        return transactionService.scrollTransactionsByBudget(budgetId, null, PAGE_SIZE).content();
+    }
+
+    private static TransactionResponseDTO toResponse(Transaction transaction) {
+        return new TransactionResponseDTO(transaction.getId(), transaction.getType(), transaction.getAmount(),
+                transaction.getCategory(), transaction.getName(), transaction.getQuantity(), transaction.getUnit(),
+                transaction.getDate(),
+                new TransactionBudgetDTO(transaction.getBudget().getId(), transaction.getBudget().getName()),
+                new TransactionUserDTO(transaction.getUser().getId(), transaction.getUser().getName()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionPageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
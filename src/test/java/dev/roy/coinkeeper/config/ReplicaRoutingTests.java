@@ -0,0 +1,96 @@
+package dev.roy.coinkeeper.config;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two embedded databases stand in for the primary and the replica, only the database name tells them apart
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.replica.username=sa",
+        "datasource.replica.password=",
+        "datasource.replica.read-your-writes-window=PT1S"
+})
+class ReplicaRoutingTests {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaWithManualFlush() {
+        assertEquals("primary", databaseUsedBy(false));
+        assertEquals("replica", databaseUsedBy(true));
+        assertEquals(FlushMode.AUTO, flushModeOf(false));
+        assertEquals(FlushMode.MANUAL, flushModeOf(true));
+    }
+
+    @Test
+    void clientsReadTheirOwnWritesFromThePrimary() {
+        authenticate("writer@coin-keeper.dev");
+        databaseUsedBy(false);
+        assertEquals("primary", databaseUsedBy(true));
+
+        authenticate("reader@coin-keeper.dev");
+        assertEquals("replica", databaseUsedBy(true));
+
+        authenticate("writer@coin-keeper.dev");
+        await().atMost(Duration.ofSeconds(5)).until(() -> "replica".equals(databaseUsedBy(true)));
+    }
+
+    @Test
+    void readsThatFillCachesCanAskForThePrimary() {
+        assertEquals("primary", template(true).execute(status -> ReplicaReads.fromPrimary(this::currentDatabase)));
+
+        template(true).executeWithoutResult(status -> {
+            assertEquals("replica", currentDatabase());
+            assertTrue(ReplicaReads.inReplicaTransaction());
+        });
+        assertFalse(ReplicaReads.inReplicaTransaction());
+    }
+
+    private String databaseUsedBy(boolean readOnly) {
+        return template(readOnly).execute(status -> currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return entityManager.createNativeQuery("select database()").getSingleResult().toString().toLowerCase();
+    }
+
+    private FlushMode flushModeOf(boolean readOnly) {
+        return template(readOnly).execute(status -> entityManager.unwrap(Session.class).getHibernateFlushMode());
+    }
+
+    private TransactionTemplate template(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null, "ROLE_USER"));
+    }
+}
@@ -0,0 +1,122 @@
+package dev.roy.coinkeeper.controller;
+
+import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.entity.Transaction;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fails when an endpoint starts loading associations row by row: the number of statements must not depend on
+ * how many budgets, users and transactions end up on a page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class FetchPlanTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Budget budget;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = saveUser("fetch-plan");
+        List<Budget> budgets = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            User owner = saveUser("fetch-plan-" + i);
+            budgets.add(budgetRepository.save(new Budget(null, "Budget of " + owner.getName(), null,
+                    LocalDateTime.now().minusDays(budgets.size()), null, null, owner, new ArrayList<>(List.of(user)))));
+        }
+        budget = budgets.get(0);
+        // Spread over every budget and author, so a bigger page reaches more distinct associations
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Budget target = i < 6 ? budget : budgets.get(i % budgets.size());
+            User author = i % 2 == 0 ? user : target.getUser();
+            transactions.add(new Transaction(null, TransactionType.DEBIT, 1F, LocalDateTime.now().minusHours(i),
+                    "misc", "item " + i, null, null, null, target, author));
+        }
+        transaction = transactionRepository.saveAll(transactions).get(0);
+        entityManager.flush();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/v1/transactions",
+            "/api/v1/transactions/budgets/{budgetId}",
+            "/api/v1/transactions/budgets/{budgetId}?keyset=true",
+            "/api/v1/transactions/users/{userId}",
+            "/api/v1/transactions/users/{userId}?keyset=true",
+            "/api/v1/budgets",
+            "/api/v1/budgets/users/{userId}?members=true",
+            "/api/v1/budgets/users/{userId}/visible",
+            "/api/v1/users"
+    })
+    void listStatementCountDoesNotGrowWithPageSize(String endpoint) throws Exception {
+        // Neither page is the last one, so both sizes issue the same count query
+        assertEquals(statementCount(endpoint, 2), statementCount(endpoint, 4), endpoint);
+    }
+
+    @Test
+    void singleEntityEndpointsUseOneStatement() throws Exception {
+        assertEquals(1, statementCount("/api/v1/transactions/" + transaction.getId(), 1));
+        assertEquals(1, statementCount("/api/v1/budgets/{budgetId}", 1));
+        assertEquals(1, statementCount("/api/v1/users/{userId}", 1));
+    }
+
+    private long statementCount(String endpoint, int size) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+        String url = endpoint.replace("{budgetId}", budget.getId().toString())
+                .replace("{userId}", user.getId().toString());
+        mockMvc.perform(get(url).param("size", String.valueOf(size))
+                        .with(jwt().authorities(() -> "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User saveUser(String name) {
+        return userRepository.save(new User(null, name, name + "@coin-keeper.dev", "password",
+                null, LocalDateTime.now(), true, null, null));
+    }
+}
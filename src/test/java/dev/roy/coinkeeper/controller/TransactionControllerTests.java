@@ -0,0 +1,194 @@
+package dev.roy.coinkeeper.controller;
+
+import dev.roy.coinkeeper.dto.TransactionRequestDTO;
+import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.service.TokenService;
+import dev.roy.coinkeeper.service.TransactionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class TransactionControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private List<User> members;
+    private Budget budget;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = saveUser("owner");
+        members = List.of(saveUser("first"), saveUser("second"));
+        budget = budgetRepository.save(new Budget(null, "Trip", null, LocalDateTime.now(), null,
+                null, owner, new ArrayList<>(members)));
+    }
+
+    @Test
+    void summaryStatementCountDoesNotGrowWithTransactions() throws Exception {
+        postTransactions(5);
+        long statementsForFewTransactions = summaryStatementCount();
+
+        postTransactions(100);
+        long statementsForManyTransactions = summaryStatementCount();
+
+        assertEquals(statementsForFewTransactions, statementsForManyTransactions);
+        assertEquals(2, statementsForManyTransactions);
+    }
+
+    @Test
+    void budgetEndpointsAreLimitedToOwnerAndMembers() throws Exception {
+        User outsider = saveUser("outsider");
+
+        // Only the first request of a member runs the membership query, the next one is answered from the cache
+        long firstRequestStatements = totalsStatementCount(members.get(0), status().isOk());
+        long secondRequestStatements = totalsStatementCount(members.get(0), status().isOk());
+        totalsStatementCount(outsider, status().isForbidden());
+        mockMvc.perform(get("/api/v1/transactions/total/users/{userId}", owner.getId())
+                        .with(userJwt(outsider)))
+                .andExpect(status().isForbidden());
+
+        assertEquals(firstRequestStatements - 1, secondRequestStatements);
+    }
+
+    @Test
+    void transactionsCanOnlyBePostedInTheCallersName() throws Exception {
+        User member = members.get(0);
+
+        mockMvc.perform(post("/api/v1/transactions")
+                        .with(userJwt(member))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transactionJson(owner)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/transactions/bulk")
+                        .with(userJwt(member))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + transactionJson(member) + "," + transactionJson(owner) + "]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/transactions")
+                        .with(userJwt(member))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transactionJson(member)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.user.userId").value(member.getId()));
+    }
+
+    @Test
+    void onlyTheOwnerMayUpdateOrDeleteABudget() throws Exception {
+        User member = members.get(0);
+        String rename = "{\"name\": \"Renamed\", \"userId\": " + member.getId() + "}";
+
+        mockMvc.perform(put("/api/v1/budgets/{budgetId}", budget.getId())
+                        .with(userJwt(member))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(rename))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/v1/budgets/{budgetId}", budget.getId())
+                        .with(userJwt(member)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/v1/budgets/{budgetId}", budget.getId())
+                        .with(userJwt(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(rename))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void bulkImportRejectsMissingRowsAsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/transactions/bulk")
+                        .with(userJwt(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data.dtos").value("must not be null"));
+    }
+
+    private long totalsStatementCount(User user, ResultMatcher expectedStatus) throws Exception {
+        entityManager.flush();
+        statistics.clear();
+        mockMvc.perform(get("/api/v1/transactions/total/budgets/{budgetId}", budget.getId())
+                        .with(userJwt(user)))
+                .andExpect(expectedStatus);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String transactionJson(User user) {
+        return "{\"type\": \"DEBIT\", \"amount\": 5, \"category\": \"food\", \"budgetId\": " + budget.getId()
+                + ", \"userId\": " + user.getId() + "}";
+    }
+
+    private static RequestPostProcessor userJwt(User user) {
+        return jwt().jwt(token -> token.subject(user.getEmail()).claim(TokenService.USER_ID_CLAIM, user.getId()))
+                .authorities(() -> "ROLE_USER");
+    }
+
+    private long summaryStatementCount() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(get("/api/v1/transactions/summary/budgets/{budgetId}", budget.getId())
+                        .with(userJwt(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.allBudgetMembers.length()").value(3));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void postTransactions(int countPerUser) {
+        List<User> everyone = new ArrayList<>(members);
+        everyone.add(owner);
+        for (User user : everyone) {
+            for (int i = 0; i < countPerUser; i++) {
+                transactionService.addTransaction(new TransactionRequestDTO(i % 2 == 0 ? "CREDIT" : "DEBIT",
+                        5F, null, "food", "meal", null, null, budget.getId(), user.getId()));
+            }
+        }
+    }
+
+    private User saveUser(String name) {
+        return userRepository.save(new User(null, name, name + "@coin-keeper.dev", "password",
+                null, LocalDateTime.now(), true, null, null));
+    }
+}
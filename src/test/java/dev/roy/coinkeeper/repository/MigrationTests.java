@@ -0,0 +1,136 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.entity.Transaction;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.security.util.TokenHashes;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Upgrades a database created by Hibernate before the migrations existed, the way production is upgraded:
+ * the schema of V1 is already there and Flyway baselines it at version 1.
+ */
+class MigrationTests {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pre-migrations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop all objects");
+    }
+
+    @Test
+    void ledgerBalancesAreBackfilledFromExistingTransactions() {
+        seedUserAndBudget();
+        insertTransaction(1, "DEBIT", 10.5F, 1);
+        insertTransaction(2, "DEBIT", 4.5F, 1);
+        insertTransaction(3, "CREDIT", 100F, 1);
+        insertTransaction(4, "DEBIT", 7F, 2);
+
+        migrate();
+
+        assertEquals(15.0, ledgerTotal(1, "DEBIT"));
+        assertEquals(100.0, ledgerTotal(1, "CREDIT"));
+        assertEquals(7.0, ledgerTotal(2, "DEBIT"));
+        assertEquals(3, count("ledger_balances"));
+    }
+
+    @Test
+    void contentHashesAreBackfilledForExistingTransactions() {
+        seedUserAndBudget();
+        insertTransaction(1, "DEBIT", 10.5F, 1);
+
+        migrate();
+
+        String expected = Transaction.contentHash(TransactionType.DEBIT, 10.5F, LocalDateTime.of(2024, 1, 1, 12, 0),
+                "food", "item", null, null, 1, 1);
+        assertEquals(expected, jdbcTemplate.queryForObject(
+                "select content_hash from transactions where transaction_id = 1", String.class));
+    }
+
+    @Test
+    void refreshTokensAreHashedInPlace() {
+        seedUserAndBudget();
+        jdbcTemplate.update("insert into roles (role_id, name) values (1, 'USER'), (2, 'ADMIN')");
+        jdbcTemplate.update("insert into users_roles (user_id, role_id) values (1, 1), (1, 2), (2, 1)");
+        String token = "0b7c7c5e-8e0f-4c3a-9d55-1f0f7a2c9e11";
+        jdbcTemplate.update("insert into refresh_token (id, token, expiry, user_id) values (1, ?, ?, 1)",
+                token, LocalDateTime.now().plusHours(1));
+        jdbcTemplate.update("insert into refresh_token (id, token, expiry, user_id) values (2, 'other', ?, 2)",
+                LocalDateTime.now().plusHours(1));
+
+        migrate();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select token_hash, email, roles from refresh_token where id = 1");
+        assertEquals(TokenHashes.sha256(token), row.get("token_hash"));
+        assertEquals("old@coin-keeper.dev", row.get("email"));
+        assertEquals("ADMIN USER", row.get("roles"));
+        assertEquals("USER", jdbcTemplate.queryForObject("select roles from refresh_token where id = 2", String.class));
+    }
+
+    @Test
+    void baselinedDatabasesReceiveEveryLaterMigration() {
+        MigrateResult result = migrate();
+
+        assertEquals("1", result.initialSchemaVersion);
+        assertEquals(0, count("ledger_balances"));
+        assertEquals(0, count("monthly_rollups"));
+        assertEquals(0, count("rollup_months"));
+        assertEquals(0, count("outbox_event"));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(content_hash) from transactions", Integer.class));
+    }
+
+    private MigrateResult migrate() {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private void seedUserAndBudget() {
+        String insertUser = "insert into users (user_id, name, email, password, active) values (?, ?, ?, 'x', true)";
+        jdbcTemplate.update(insertUser, 1, "Old", "old@coin-keeper.dev");
+        jdbcTemplate.update(insertUser, 2, "Member", "member@coin-keeper.dev");
+        jdbcTemplate.update("insert into budgets (budget_id, name, user_id) values (1, 'Household', 1)");
+    }
+
+    private void insertTransaction(int id, String type, float amount, int userId) {
+        jdbcTemplate.update("insert into transactions (transaction_id, type, amount, date, category, name, budget_id, "
+                        + "user_id) values (?, ?, ?, ?, 'food', 'item', 1, ?)",
+                id, type, amount, LocalDateTime.of(2024, 1, id, 12, 0), userId);
+    }
+
+    private double ledgerTotal(int userId, String type) {
+        return jdbcTemplate.queryForObject("select sum(total) from ledger_balances where budget_id = 1 and user_id = ? "
+                + "and type = ?", Double.class, userId, type);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+}
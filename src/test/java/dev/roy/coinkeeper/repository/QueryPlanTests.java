@@ -0,0 +1,223 @@
+package dev.roy.coinkeeper.repository;
+
+import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.entity.LedgerBalance;
+import dev.roy.coinkeeper.entity.MonthlyRollup;
+import dev.roy.coinkeeper.entity.RefreshToken;
+import dev.roy.coinkeeper.entity.RollupMonth;
+import dev.roy.coinkeeper.entity.Transaction;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.entity.UserOTP;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs every repository finder on a seeded dataset and fails when the plan of one of its statements scans a table.
+ * Whole-table reads (admin listings and the ledger reconciliation) are left out on purpose.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "dev.roy.coinkeeper.repository.RecordingStatementInspector")
+@Transactional
+class QueryPlanTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private UserOTPRepository userOTPRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private LedgerBalanceRepository ledgerBalanceRepository;
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+    @Autowired
+    private RollupMonthRepository rollupMonthRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+    private Budget budget;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(userRepository.save(new User(null, "Plan " + i, "plan-" + i + "@coin-keeper.dev", "password",
+                    null, NOW, true, Set.copyOf(roleRepository.findAll()), null)));
+        }
+        user = users.get(0);
+        List<Budget> budgets = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            budgets.add(budgetRepository.save(new Budget(null, "Budget " + i, null, NOW.minusDays(i), null, null,
+                    users.get(i % users.size()), new ArrayList<>(List.of(users.get((i + 1) % users.size()))))));
+        }
+        budget = budgets.get(0);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 800; i++) {
+            transactions.add(new Transaction(null, i % 3 == 0 ? TransactionType.CREDIT : TransactionType.DEBIT, 5F,
+                    NOW.minusHours(i), "category " + i % 7, "item " + i, null, null, "hash-" + i,
+                    budgets.get(i % budgets.size()), users.get(i % users.size())));
+        }
+        transaction = transactionRepository.saveAll(transactions).get(0);
+        for (User member : users) {
+            refreshTokenRepository.save(new RefreshToken(null, "hash-" + member.getId(), NOW, member.getEmail(),
+                    "USER", member));
+            userOTPRepository.save(new UserOTP(null, 123456, NOW, member));
+        }
+        for (Budget each : budgets) {
+            for (int stripe = 0; stripe < 4; stripe++) {
+                ledgerBalanceRepository.save(new LedgerBalance(null, each.getId(), each.getUser().getId(),
+                        TransactionType.DEBIT, stripe, 1.0));
+            }
+            for (int month = 0; month < 6; month++) {
+                monthlyRollupRepository.save(new MonthlyRollup(null, each.getId(),
+                        NOW.minusMonths(month).withDayOfMonth(1), TransactionType.DEBIT, "misc", 1.0));
+            }
+        }
+        for (int month = 1; month < 6; month++) {
+            rollupMonthRepository.save(new RollupMonth(NOW.minusMonths(month).withDayOfMonth(1), NOW));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void everyFinderIsAnsweredFromAnIndex() {
+        Map<String, Runnable> finders = new LinkedHashMap<>();
+        Integer budgetId = budget.getId();
+        Integer userId = user.getId();
+        PageRequest page = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "date"));
+        PageRequest budgetPage = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "openDate"));
+
+        finders.put("BudgetRepository.findById", () -> budgetRepository.findById(budgetId));
+        finders.put("BudgetRepository.findRowsByOwnerId", () -> budgetRepository.findRowsByOwnerId(userId, budgetPage));
+        finders.put("BudgetRepository.findRowsByMemberId", () -> budgetRepository.findRowsByMemberId(userId, budgetPage));
+        finders.put("BudgetRepository.findFirstRowsVisibleToUser", () -> budgetRepository
+                .findFirstRowsVisibleToUser(userId, Limit.of(5)));
+        finders.put("BudgetRepository.findRowsVisibleToUserBefore", () -> budgetRepository
+                .findRowsVisibleToUserBefore(userId, NOW.plusDays(1), Integer.MAX_VALUE, Limit.of(5)));
+        finders.put("BudgetRepository.findMemberRows", () -> budgetRepository.findMemberRows(List.of(budgetId)));
+        finders.put("BudgetRepository.findRosterEmails", () -> budgetRepository.findRosterEmails(budgetId));
+        finders.put("BudgetRepository.existsByIdAndOwnerOrMember", () -> budgetRepository
+                .existsByIdAndOwnerOrMember(budgetId, userId));
+
+        finders.put("TransactionRepository.findById", () -> transactionRepository.findById(transaction.getId()));
+        finders.put("TransactionRepository.findRowsByBudgetId", () -> transactionRepository
+                .findRowsByBudgetId(budgetId, page));
+        finders.put("TransactionRepository.findRowsByUserId", () -> transactionRepository
+                .findRowsByUserId(userId, page));
+        finders.put("TransactionRepository.findFirstRowsByBudgetId", () -> transactionRepository
+                .findFirstRowsByBudgetId(budgetId, Limit.of(5)));
+        finders.put("TransactionRepository.findFirstRowsByUserId", () -> transactionRepository
+                .findFirstRowsByUserId(userId, Limit.of(5)));
+        finders.put("TransactionRepository.findRowsByBudgetIdBefore", () -> transactionRepository
+                .findRowsByBudgetIdBefore(budgetId, NOW, Integer.MAX_VALUE, Limit.of(5)));
+        finders.put("TransactionRepository.findRowsByUserIdBefore", () -> transactionRepository
+                .findRowsByUserIdBefore(userId, NOW, Integer.MAX_VALUE, Limit.of(5)));
+        finders.put("TransactionRepository.findExistingContentHashes", () -> transactionRepository
+                .findExistingContentHashes(budgetId, List.of("hash-0", "hash-1")));
+        finders.put("TransactionRepository.sumAmountByCategoryBetween", () -> transactionRepository
+                .sumAmountByCategoryBetween(NOW.minusDays(2), NOW.minusDays(1)));
+        finders.put("TransactionRepository.findTopCategoriesByBudget", () -> transactionRepository
+                .findTopCategoriesByBudget(budgetId, TransactionType.DEBIT, NOW.minusDays(7), NOW, Limit.of(3)));
+        finders.put("TransactionRepository.findTopCategoriesByUser", () -> transactionRepository
+                .findTopCategoriesByUser(userId, TransactionType.DEBIT, NOW.minusDays(7), NOW, Limit.of(3)));
+        finders.put("TransactionRepository.findBudgetIdById", () -> transactionRepository
+                .findBudgetIdById(transaction.getId()));
+        finders.put("TransactionRepository.findEarliestDate", () -> transactionRepository.findEarliestDate());
+        finders.put("TransactionRepository.streamRowsByBudgetId", () -> transactionRepository
+                .streamRowsByBudgetId(budgetId).close());
+        finders.put("TransactionRepository.sumAmount", () -> transactionRepository
+                .sumAmount(budgetId, userId, TransactionType.DEBIT));
+
+        finders.put("UserRepository.findByEmail", () -> userRepository.findByEmail(user.getEmail()));
+        finders.put("UserRepository.findWithRolesById", () -> userRepository.findWithRolesById(userId));
+        finders.put("RoleRepository.findByName", () -> roleRepository.findByName("USER"));
+        finders.put("RefreshTokenRepository.findByTokenHash", () -> refreshTokenRepository
+                .findByTokenHash("hash-" + userId));
+        finders.put("RefreshTokenRepository.findByUser", () -> refreshTokenRepository.findByUser(user));
+        finders.put("RefreshTokenRepository.findExpiredIds", () -> refreshTokenRepository
+                .findExpiredIds(NOW, Limit.of(5)));
+        finders.put("UserOTPRepository.findByUserId", () -> userOTPRepository.findByUserId(userId));
+        finders.put("OutboxEventRepository.lockDueEvents", () -> outboxEventRepository.lockDueEvents(NOW, 5));
+
+        finders.put("LedgerBalanceRepository.findStripes", () -> ledgerBalanceRepository
+                .findStripes(budgetId, userId, TransactionType.DEBIT));
+        finders.put("LedgerBalanceRepository.findByBudgetIdAndUserIdAndType", () -> ledgerBalanceRepository
+                .findByBudgetIdAndUserIdAndType(budgetId, userId, TransactionType.DEBIT));
+        finders.put("LedgerBalanceRepository.sumTotalByTypeForBudget", () -> ledgerBalanceRepository
+                .sumTotalByTypeForBudget(budgetId));
+        finders.put("LedgerBalanceRepository.sumTotalByTypeForUser", () -> ledgerBalanceRepository
+                .sumTotalByTypeForUser(userId));
+        finders.put("LedgerBalanceRepository.sumTotalByMemberForBudget", () -> ledgerBalanceRepository
+                .sumTotalByMemberForBudget(budgetId));
+        finders.put("MonthlyRollupRepository.sumByMonthAndCategory", () -> monthlyRollupRepository
+                .sumByMonthAndCategory(budgetId, NOW.minusMonths(3), NOW));
+        finders.put("MonthlyRollupRepository.sumByMonth", () -> monthlyRollupRepository
+                .sumByMonth(budgetId, NOW.minusMonths(3), NOW));
+        finders.put("RollupMonthRepository.findLatestMonthStart", () -> rollupMonthRepository.findLatestMonthStart());
+
+        List<Executable> checks = new ArrayList<>();
+        finders.forEach((name, finder) -> {
+            RecordingStatementInspector.start();
+            try {
+                finder.run();
+            } finally {
+                entityManager.clear();
+            }
+            for (String sql : RecordingStatementInspector.stop()) {
+                String plan = explain(sql);
+                checks.add(() -> assertFalse(plan.contains("tableScan"), name + " scans a table:\n" + plan));
+            }
+        });
+        assertAll(checks);
+    }
+
+    private String explain(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                // The plan does not depend on the bound values, only on the indexed columns they are compared to
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package dev.roy.coinkeeper.security;
+
+import dev.roy.coinkeeper.exception.RateLimitExceededException;
+import dev.roy.coinkeeper.security.ratelimit.AuthRateLimiter;
+import dev.roy.coinkeeper.security.ratelimit.RateLimitProperties;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs on a real port, forwarded headers are resolved by Tomcat and never reach MockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "rate-limit.endpoints.login.account-capacity=1",
+        "rate-limit.endpoints.login.ip-capacity=3",
+        "rate-limit.endpoints.login.period=PT1H"
+})
+@AutoConfigureMockMvc
+class AuthRateLimiterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void loginsOverTheLimitAreRejectedBeforeAnyLookup() throws Exception {
+        mockMvc.perform(login("stuffed@coin-keeper.dev", "10.0.0.1")).andExpect(status().isUnauthorized());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(login("stuffed@coin-keeper.dev", "10.0.0.2"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // The address bucket covers every account tried from it
+        mockMvc.perform(login("first@coin-keeper.dev", "10.0.0.3")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("second@coin-keeper.dev", "10.0.0.3")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("third@coin-keeper.dev", "10.0.0.3")).andExpect(status().isUnauthorized());
+        mockMvc.perform(login("fourth@coin-keeper.dev", "10.0.0.3")).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void clientsBehindATrustedProxyAreLimitedByTheirForwardedAddress() throws Exception {
+        // Every request comes from the loopback address, which Tomcat trusts as a proxy
+        assertEquals(401, loginThroughProxy("proxied-1@coin-keeper.dev", "203.0.113.7"));
+        assertEquals(401, loginThroughProxy("proxied-2@coin-keeper.dev", "203.0.113.7"));
+        assertEquals(401, loginThroughProxy("proxied-3@coin-keeper.dev", "203.0.113.7"));
+        assertEquals(429, loginThroughProxy("proxied-4@coin-keeper.dev", "203.0.113.7"));
+
+        assertEquals(401, loginThroughProxy("proxied-5@coin-keeper.dev", "203.0.113.8"));
+    }
+
+    @Test
+    void bucketsRefillOverTheirPeriod() throws InterruptedException {
+        AuthRateLimiter limiter = new AuthRateLimiter(new RateLimitProperties(100, Duration.ofMinutes(1),
+                Map.of(AuthRateLimiter.RESEND_OTP, new RateLimitProperties.Limit(2, 10, Duration.ofMillis(200)))));
+
+        limiter.check(AuthRateLimiter.RESEND_OTP, "42", "10.0.0.1");
+        limiter.check(AuthRateLimiter.RESEND_OTP, "42", "10.0.0.1");
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> limiter.check(AuthRateLimiter.RESEND_OTP, "42", "10.0.0.1"));
+        Thread.sleep(ex.getRetryAfter().toMillis() + 10);
+
+        assertDoesNotThrow(() -> limiter.check(AuthRateLimiter.RESEND_OTP, "42", "10.0.0.1"));
+    }
+
+    private int loginThroughProxy(String email, String forwardedFor) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/login"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\": \"" + email + "\", \"password\": \"guess\"}"))
+                .build();
+        return HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static MockHttpServletRequestBuilder login(String email, String clientAddress) {
+        return post("/api/v1/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(clientAddress);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\": \"" + email + "\", \"password\": \"guess\"}");
+    }
+}
@@ -0,0 +1,77 @@
+package dev.roy.coinkeeper.security;
+
+import dev.roy.coinkeeper.security.util.CachingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingJwtDecoderTests {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void repeatedTokensAreVerifiedOnce() {
+        JwtDecoder decoder = new CachingJwtDecoder(delegateExpiringIn(120), 100, meterRegistry);
+
+        Jwt first = decoder.decode("token-a");
+        Jwt second = decoder.decode("token-a");
+        decoder.decode("token-b");
+
+        assertEquals(first.getClaims(), second.getClaims());
+        assertEquals("token-a", second.getTokenValue());
+        assertEquals(2, verifications.get());
+        assertEquals(1, gets("hit"));
+        assertEquals(2, gets("miss"));
+    }
+
+    @Test
+    void expiredEntriesAreVerifiedAgain() {
+        JwtDecoder decoder = new CachingJwtDecoder(delegateExpiringIn(0), 100, meterRegistry);
+
+        decoder.decode("token-a");
+        decoder.decode("token-a");
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() {
+        JwtDecoder decoder = new CachingJwtDecoder(token -> {
+            verifications.incrementAndGet();
+            throw new BadJwtException("Signature verification failed");
+        }, 100, meterRegistry);
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("token-a"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("token-a"));
+
+        assertEquals(2, verifications.get());
+    }
+
+    private JwtDecoder delegateExpiringIn(long seconds) {
+        return token -> {
+            verifications.incrementAndGet();
+            Instant now = Instant.now();
+            return Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .subject("cached@coin-keeper.dev")
+                    .issuedAt(now.minusSeconds(1))
+                    .expiresAt(now.plusSeconds(seconds))
+                    .build();
+        };
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", CachingJwtDecoder.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,50 @@
+package dev.roy.coinkeeper.security;
+
+import dev.roy.coinkeeper.entity.Role;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.security.config.SecurityConfig;
+import dev.roy.coinkeeper.security.service.TokenService;
+import dev.roy.coinkeeper.security.util.JwtSigningKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtAlgorithmTests {
+
+    private static final String KEYSTORE = "classpath:jwt-algorithms-test.p12";
+
+    @ParameterizedTest
+    @CsvSource({"RS256, ''", "ES256, ''", "EdDSA, ''", "ES256, es256", "EdDSA, eddsa"})
+    void tokensAreSignedAndVerifiedWithTheConfiguredAlgorithm(String algorithm, String signingAlias) {
+        JwtSigningKeys keys = new JwtSigningKeys(signingAlias.isEmpty() ? "" : KEYSTORE, "changeit", signingAlias,
+                algorithm, new DefaultResourceLoader());
+        SecurityConfig securityConfig = new SecurityConfig(keys);
+        JwtDecoder jwtDecoder = securityConfig.jwtDecoder(new SimpleMeterRegistry());
+        User user = new User(1, "Signer", "signer@coin-keeper.dev", "password", null, LocalDateTime.now(), true,
+                Set.of(new Role(2, "USER")), null);
+
+        Jwt jwt = jwtDecoder.decode(new TokenService(securityConfig.jwtEncoder()).generateJWT(user));
+
+        assertEquals(algorithm, jwt.getHeaders().get("alg").toString());
+        assertEquals(keys.getSigningKey().getKeyID(), jwt.getHeaders().get("kid"));
+        assertEquals(user.getEmail(), jwt.getSubject());
+    }
+
+    @Test
+    void signingKeyMustMatchTheAlgorithm() {
+        assertThrows(IllegalStateException.class, () -> new JwtSigningKeys(KEYSTORE, "changeit", "es256", "EdDSA",
+                new DefaultResourceLoader()));
+        assertThrows(IllegalStateException.class, () -> new JwtSigningKeys("", "", "", "HS256",
+                new DefaultResourceLoader()));
+    }
+}
@@ -0,0 +1,80 @@
+package dev.roy.coinkeeper.security;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import dev.roy.coinkeeper.controller.JwksController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtKeyRotationTests {
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+    @Autowired
+    private JwtDecoder jwtDecoder;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void tokensOfEveryKeyInTheKeystoreAreAccepted() throws Exception {
+        String current = jwtEncoder.encode(JwtEncoderParameters.from(claims())).getTokenValue();
+        assertEquals("2026-10", jwtDecoder.decode(current).getHeaders().get("kid"));
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = getClass().getResourceAsStream("/jwt-test.p12")) {
+            keyStore.load(in, "changeit".toCharArray());
+        }
+        JWKSet keys = JWKSet.load(keyStore, alias -> "changeit".toCharArray());
+        String rotatedOut = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(keys.getKeyByKeyId("2026-04"))))
+                .encode(JwtEncoderParameters.from(claims())).getTokenValue();
+        assertEquals("2026-04", jwtDecoder.decode(rotatedOut).getHeaders().get("kid"));
+
+        RSAKey unknown = new RSAKey.Builder(keys.getKeyByKeyId("2026-04").toRSAKey()).keyID("unknown").build();
+        String forged = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(unknown)))
+                .encode(JwtEncoderParameters.from(claims())).getTokenValue();
+        assertThrows(JwtException.class, () -> jwtDecoder.decode(forged));
+    }
+
+    @Test
+    void jwksEndpointPublishesOnlyPublicKeys() throws Exception {
+        mockMvc.perform(get(JwksController.JWKS_PATH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys", hasSize(2)))
+                .andExpect(jsonPath("$.keys[*].kid", containsInAnyOrder("2026-04", "2026-10")))
+                .andExpect(jsonPath("$.keys[*].d", hasSize(0)));
+    }
+
+    private static JwtClaimsSet claims() {
+        Instant now = Instant.now();
+        return JwtClaimsSet.builder()
+                .issuer("coin-keeper")
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(60))
+                .subject("rotation@coin-keeper.dev")
+                .build();
+    }
+}
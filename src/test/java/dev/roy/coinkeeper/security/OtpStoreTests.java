@@ -0,0 +1,135 @@
+package dev.roy.coinkeeper.security;
+
+import dev.roy.coinkeeper.dto.ResetPasswordRequestDTO;
+import dev.roy.coinkeeper.dto.VerifyOTPRequestDTO;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.exception.InvalidOTPException;
+import dev.roy.coinkeeper.exception.OTPAttemptsExceededException;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.model.OneTimePassword;
+import dev.roy.coinkeeper.security.service.AuthenticationService;
+import dev.roy.coinkeeper.security.store.InMemoryOtpStore;
+import dev.roy.coinkeeper.security.store.OtpStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OtpStoreTests {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private OtpStore otpStore;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "Otp", "otp@coin-keeper.dev", "password", null,
+                LocalDateTime.now(), false, null, null));
+        otpStore.save(user.getId(), new OneTimePassword(123456, LocalDateTime.now().plusMinutes(15)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        otpStore.delete(user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void verificationBurstsStopAtTheAttemptLimit() {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertThrows(InvalidOTPException.class,
+                    () -> authenticationService.verifyOTP(new VerifyOTPRequestDTO(111111, user.getId())));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThrows(OTPAttemptsExceededException.class,
+                () -> authenticationService.verifyOTP(new VerifyOTPRequestDTO(123456, user.getId())));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void concurrentGuessesCannotGetPastTheAttemptLimit() throws Exception {
+        int guesses = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(guesses);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Class<?>>> outcomes = new ArrayList<>();
+        try {
+            for (int guess = 0; guess < guesses; guess++) {
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        authenticationService.verifyOTP(new VerifyOTPRequestDTO(111111, user.getId()));
+                        return Void.class;
+                    } catch (RuntimeException e) {
+                        return e.getClass();
+                    }
+                }));
+            }
+            start.countDown();
+            List<Class<?>> results = new ArrayList<>();
+            for (Future<Class<?>> outcome : outcomes) {
+                results.add(outcome.get(30, TimeUnit.SECONDS));
+            }
+
+            assertEquals(5, Collections.frequency(results, InvalidOTPException.class));
+            assertEquals(guesses - 5, Collections.frequency(results, OTPAttemptsExceededException.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void verificationAndPasswordResetShareOneAttemptLimit() {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(InvalidOTPException.class,
+                    () -> authenticationService.verifyOTP(new VerifyOTPRequestDTO(111111, user.getId())));
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThrows(InvalidOTPException.class, () -> authenticationService.resetPassword(
+                    new ResetPasswordRequestDTO(user.getEmail(), 111111, "new-password")));
+        }
+
+        assertThrows(OTPAttemptsExceededException.class, () -> authenticationService.resetPassword(
+                new ResetPasswordRequestDTO(user.getEmail(), 123456, "new-password")));
+    }
+
+    @Test
+    void inMemoryStoreDropsExpiredCodes() {
+        OtpStore store = new InMemoryOtpStore(10);
+        store.save(1, new OneTimePassword(123456, LocalDateTime.now().minusSeconds(1)));
+        store.save(2, new OneTimePassword(654321, LocalDateTime.now().plusMinutes(15)));
+
+        assertTrue(store.find(1).isEmpty());
+        assertEquals(654321, store.find(2).orElseThrow().otp());
+
+        store.delete(2);
+        assertTrue(store.find(2).isEmpty());
+    }
+}
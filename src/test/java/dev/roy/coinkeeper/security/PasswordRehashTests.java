@@ -0,0 +1,96 @@
+package dev.roy.coinkeeper.security;
+
+import dev.roy.coinkeeper.dto.LoginRequestDTO;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.RoleRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.service.AuthenticationService;
+import dev.roy.coinkeeper.security.util.PasswordHashing;
+import dev.roy.coinkeeper.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PasswordRehashTests {
+
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private static final Duration TARGET_LATENCY = Duration.ofMillis(250);
+
+    private User user;
+
+    @AfterEach
+    void tearDown() {
+        if (user != null) {
+            userService.deleteUserById(user.getId());
+        }
+    }
+
+    @Test
+    void legacyHashesAreReplacedOnLogin() {
+        // Stored before hashes carried an algorithm prefix, with a lower cost than configured
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret");
+        user = userRepository.save(new User(null, "Legacy", "legacy@coin-keeper.dev", legacyHash, null,
+                LocalDateTime.now(), true, Set.copyOf(roleRepository.findAll()), null));
+
+        authenticationService.login(new LoginRequestDTO(user.getEmail(), "secret"));
+        String upgraded = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertTrue(upgraded.startsWith("{bcrypt}"), upgraded);
+        assertTrue(passwordEncoder.matches("secret", upgraded));
+
+        authenticationService.login(new LoginRequestDTO(user.getEmail(), "secret"));
+        assertEquals(upgraded, userRepository.findById(user.getId()).orElseThrow().getPassword());
+    }
+
+    @Test
+    void switchingAlgorithmsKeepsOldHashesVerifiable() {
+        String bcryptHash = PasswordHashing.create(PasswordHashing.BCRYPT, 4, 1000, TARGET_LATENCY).encode("secret");
+        PasswordEncoder pbkdf2 = PasswordHashing.create(PasswordHashing.PBKDF2, 4, 1000, TARGET_LATENCY);
+
+        assertTrue(pbkdf2.matches("secret", bcryptHash));
+        assertTrue(pbkdf2.upgradeEncoding(bcryptHash));
+        assertTrue(pbkdf2.encode("secret").startsWith("{pbkdf2-1000}"));
+    }
+
+    @Test
+    void pbkdf2HashesStillVerifyAfterTheIterationCountChanges() {
+        String hash = PasswordHashing.create(PasswordHashing.PBKDF2, 4, 1000, TARGET_LATENCY).encode("secret");
+        PasswordEncoder moreIterations = PasswordHashing.create(PasswordHashing.PBKDF2, 4, 2000, TARGET_LATENCY);
+        PasswordEncoder bcrypt = PasswordHashing.create(PasswordHashing.BCRYPT, 4, 2000, TARGET_LATENCY);
+
+        assertTrue(moreIterations.matches("secret", hash));
+        assertFalse(moreIterations.matches("wrong", hash));
+        assertTrue(moreIterations.upgradeEncoding(hash));
+        assertTrue(bcrypt.matches("secret", hash));
+        assertTrue(bcrypt.upgradeEncoding(hash));
+        assertFalse(moreIterations.upgradeEncoding(moreIterations.encode("secret")));
+    }
+
+    @Test
+    void calibrationNeverGoesBelowTheMinimumCost() {
+        PasswordEncoder encoder = PasswordHashing.create(PasswordHashing.BCRYPT, 0, 1000, Duration.ofMillis(1));
+
+        assertTrue(encoder.encode("secret").startsWith("{bcrypt}$2a$10$"));
+    }
+}
@@ -0,0 +1,139 @@
+package dev.roy.coinkeeper.security;
+
+import dev.roy.coinkeeper.config.CacheConfig;
+import dev.roy.coinkeeper.dto.UserRequestDTO;
+import dev.roy.coinkeeper.entity.RefreshToken;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.exception.InvalidRefreshTokenException;
+import dev.roy.coinkeeper.repository.RefreshTokenRepository;
+import dev.roy.coinkeeper.repository.RoleRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.service.AuthenticationService;
+import dev.roy.coinkeeper.security.service.RefreshTokenPurgeService;
+import dev.roy.coinkeeper.security.service.RefreshTokenService;
+import dev.roy.coinkeeper.security.util.TokenHashes;
+import dev.roy.coinkeeper.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Not transactional: cache writes and evictions only happen once the surrounding transaction commits
+@SpringBootTest
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private RefreshTokenPurgeService purgeService;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RefreshTokenRepository tokenRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private JwtDecoder jwtDecoder;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < 6; i++) {
+            users.add(userRepository.save(new User(null, "Refresh " + i, "refresh-" + i + "@coin-keeper.dev",
+                    "password", null, LocalDateTime.now(), true, Set.copyOf(roleRepository.findAll()), null)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenRepository.deleteAll();
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void refreshesAreServedFromTheCacheWithoutLoadingTheUser() {
+        User user = users.get(0);
+        String token = refreshTokenService.issue(user);
+        RefreshToken stored = tokenRepository.findByUser(user).orElseThrow();
+        assertEquals(TokenHashes.sha256(token), stored.getTokenHash());
+
+        statistics.clear();
+        Jwt jwt = jwtDecoder.decode(authenticationService.getNewJwt(new Cookie("refreshToken", token)));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(user.getEmail(), jwt.getSubject());
+        assertEquals(Set.of("ADMIN", "USER"), Set.of(jwt.getClaimAsString("roles").split(" ")));
+
+        cacheManager.getCache(CacheConfig.REFRESH_TOKENS).clear();
+        statistics.clear();
+        authenticationService.getNewJwt(new Cookie("refreshToken", token));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void replacedAndRevokedTokensNoLongerRefresh() {
+        User user = users.get(0);
+        String replaced = refreshTokenService.issue(user);
+        String token = refreshTokenService.issue(user);
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.getNewJwt(new Cookie("refreshToken", replaced)));
+
+        authenticationService.deleteRefreshToken(new Cookie("refreshToken", token));
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.getNewJwt(new Cookie("refreshToken", token)));
+    }
+
+    @Test
+    void changingTheEmailRevokesTheUsersTokens() {
+        User user = users.get(0);
+        String token = refreshTokenService.issue(user);
+        authenticationService.getNewJwt(new Cookie("refreshToken", token));
+
+        userService.updateUserById(user.getId(), new UserRequestDTO(null, "renamed@coin-keeper.dev", null, null));
+
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> authenticationService.getNewJwt(new Cookie("refreshToken", token)));
+        assertTrue(tokenRepository.findByUser(user).isEmpty());
+    }
+
+    @Test
+    void expiredTokensArePurgedInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : users) {
+            LocalDateTime expiry = user == users.get(0) ? now.plusMinutes(60) : now.minusMinutes(1);
+            tokenRepository.save(new RefreshToken(null, "hash-" + user.getId(), expiry, user.getEmail(), "USER", user));
+        }
+
+        assertEquals(5, purgeService.purgeExpired());
+        assertEquals(1, tokenRepository.count());
+        assertTrue(tokenRepository.findByTokenHash("hash-" + users.get(0).getId()).isPresent());
+    }
+}
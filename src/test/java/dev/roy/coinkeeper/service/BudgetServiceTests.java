@@ -0,0 +1,114 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.config.CacheConfig;
+import dev.roy.coinkeeper.dto.BudgetRequestDTO;
+import dev.roy.coinkeeper.dto.BudgetResponseDTO;
+import dev.roy.coinkeeper.dto.CursorPage;
+import dev.roy.coinkeeper.dto.Member;
+import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Not transactional: cache writes and evictions only happen once the surrounding transaction commits
+@SpringBootTest
+class BudgetServiceTests {
+
+    @Autowired
+    private BudgetService budgetService;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private User user;
+    private Budget budget;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User(null, "Cached", "cached@coin-keeper.dev", "password",
+                null, LocalDateTime.now(), true, null, null));
+        budget = budgetRepository.save(new Budget(null, "Groceries", null, LocalDateTime.now(), null,
+                null, user, new ArrayList<>()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        budgetRepository.deleteById(budget.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void budgetLookupsAreCachedUntilTheBudgetChanges() {
+        double hits = cacheGets("hit");
+        budgetService.findBudgetById(budget.getId());
+        statistics.clear();
+        budgetService.findBudgetById(budget.getId());
+        budgetService.getRosterEmails(budget.getId());
+        budgetService.getRosterEmails(budget.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(hits + 1, cacheGets("hit"));
+
+        budgetService.updateBudgetById(budget.getId(), new BudgetRequestDTO("Food", null, null, null, null));
+
+        assertEquals("Food", budgetService.findBudgetById(budget.getId()).name());
+    }
+
+    @Test
+    @Transactional
+    void visibleBudgetsCombineOwnedAndSharedInOneScroll() {
+        User other = userRepository.save(new User(null, "Other", "other@coin-keeper.dev", "password",
+                null, LocalDateTime.now(), true, null, null));
+        Budget shared = budgetRepository.save(new Budget(null, "Shared", null, LocalDateTime.now().minusDays(1), null,
+                null, other, new ArrayList<>(List.of(user))));
+        budgetRepository.save(new Budget(null, "Private", null, LocalDateTime.now(), null, null, other, new ArrayList<>()));
+        budgetRepository.save(new Budget(null, "Second", null, LocalDateTime.now().minusDays(2), null,
+                null, user, new ArrayList<>(List.of(other))));
+        // Cursors carry the stored open date, so the page has to be read back from the database
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<BudgetResponseDTO> page = budgetService.scrollBudgetsVisibleToUser(user.getId(), cursor, 2);
+            page.content().forEach(budget -> names.add(budget.name()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("Groceries", "Shared", "Second"), names);
+        assertEquals(List.of(user.getId()), budgetService.findBudgetById(shared.getId()).members().stream()
+                .map(Member::id).toList());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfig.BUDGETS).tag("result", result)
+                .functionCounter().count();
+    }
+}
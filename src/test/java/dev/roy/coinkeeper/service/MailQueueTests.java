@@ -0,0 +1,93 @@
+package dev.roy.coinkeeper.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import dev.roy.coinkeeper.dto.OutgoingMail;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GreenMail listens on the SMTP port of the test properties
+@SpringBootTest(properties = {
+        "mail.batch.linger=PT0.5S",
+        "mail.retry.backoff=PT0.2S"
+})
+class MailQueueTests {
+
+    @Autowired
+    private MailService mailService;
+    @Autowired
+    private MailQueue mailQueue;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private GreenMail greenMail;
+
+    @BeforeEach
+    void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        greenMail.stop();
+    }
+
+    @Test
+    void burstsAreSentInBatches() {
+        long batchesBefore = meterRegistry.get("mail.send").timer().count();
+
+        for (int i = 0; i < 20; i++) {
+            mailService.sendOTPViaEmail("User " + i, "user-" + i + "@coin-keeper.dev", 100000 + i);
+        }
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 20));
+        assertEquals(20, greenMail.getReceivedMessages().length);
+        long batches = meterRegistry.get("mail.send").timer().count() - batchesBefore;
+        assertTrue(batches < 20, "20 emails took " + batches + " batches");
+    }
+
+    @Test
+    void failedSendsAreRetried() throws Exception {
+        greenMail.stop();
+        CompletableFuture<Void> sent = mailQueue.enqueue(new OutgoingMail("retry@coin-keeper.dev", "Retry", "<p>retry</p>"));
+        Thread.sleep(1000);
+
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+
+        sent.get(10, TimeUnit.SECONDS);
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals("retry@coin-keeper.dev", greenMail.getReceivedMessages()[0].getAllRecipients()[0].toString());
+    }
+
+    @Test
+    void shutdownFailsEmailsWaitingForARetry() throws Exception {
+        JavaMailSenderImpl unreachable = new JavaMailSenderImpl();
+        unreachable.setHost("localhost");
+        unreachable.setPort(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MailQueue queue = new MailQueue(unreachable, registry, 10, Duration.ofSeconds(1), 1, 1, Duration.ZERO,
+                5, Duration.ofMinutes(1));
+
+        CompletableFuture<Void> sent = queue.enqueue(new OutgoingMail("stopped@coin-keeper.dev", "Stopped", "<p>stopped</p>"));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> registry.get("mail.send").timer().count() == 1);
+        queue.shutdown();
+
+        assertTrue(sent.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,189 @@
+package dev.roy.coinkeeper.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import dev.roy.coinkeeper.dto.ForgetPasswordRequestDTO;
+import dev.roy.coinkeeper.entity.OutboxEvent;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.repository.OutboxEventRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import dev.roy.coinkeeper.security.service.AuthenticationService;
+import dev.roy.coinkeeper.security.store.OtpStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GreenMail listens on the SMTP port of the test properties
+@SpringBootTest(properties = {
+        "outbox.retry.backoff=PT1H",
+        "outbox.retry.max-attempts=2",
+        "outbox.delivery-timeout=PT2S"
+})
+@Import(OutboxTests.RecordingHandlerConfig.class)
+class OutboxTests {
+
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxPoller outboxPoller;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private RecordingHandler recordingHandler;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OtpStore otpStore;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    enum Outcome {DELIVER, FAIL, HANG}
+
+    record Recorded(int sequence, Outcome outcome) {
+    }
+
+    static class RecordingHandler implements OutboxHandler<Recorded> {
+
+        private final List<Integer> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Class<Recorded> eventType() {
+            return Recorded.class;
+        }
+
+        @Override
+        public CompletableFuture<Void> handle(Recorded event) {
+            return switch (event.outcome()) {
+                case FAIL -> throw new IllegalStateException("handler failed on " + event.sequence());
+                case HANG -> new CompletableFuture<>();
+                case DELIVER -> {
+                    received.add(event.sequence());
+                    yield CompletableFuture.completedFuture(null);
+                }
+            };
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingHandlerConfig {
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+    }
+
+    // Other test classes share the database and may have left events behind
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        recordingHandler.received.clear();
+    }
+
+    @Test
+    void eventsCannotBePublishedOutsideATransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> outboxService.publish(new Recorded(1, Outcome.DELIVER)));
+    }
+
+    @Test
+    void eventsOfARolledBackTransactionAreNeverDelivered() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outboxService.publish(new Recorded(1, Outcome.DELIVER));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxPoller.poll());
+        assertTrue(recordingHandler.received.isEmpty());
+    }
+
+    @Test
+    void aFailedEventIsRetriedLaterWithoutHoldingBackTheRestOfItsBatch() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int sequence = 1; sequence <= 5; sequence++) {
+                outboxService.publish(new Recorded(sequence, sequence == 3 ? Outcome.FAIL : Outcome.DELIVER));
+            }
+        });
+
+        // Attempts follow id order within the batch, the failed event does not stop the ones after it
+        assertEquals(4, outboxPoller.poll());
+        assertEquals(List.of(1, 2, 4, 5), recordingHandler.received);
+
+        List<OutboxEvent> remaining = outboxEventRepository.findAll();
+        assertEquals(1, remaining.size());
+        assertEquals(1, remaining.get(0).getAttempts());
+        assertTrue(remaining.get(0).getAvailableAt().isAfter(LocalDateTime.now()));
+        assertNull(remaining.get(0).getClaimedBy());
+        assertEquals(0, outboxPoller.poll());
+    }
+
+    @Test
+    void eventsWhoseDeliveryIsNeverConfirmedAreRetriedAndRemovedAfterTheLastAttempt() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxService.publish(new Recorded(1, Outcome.HANG)));
+
+        assertEquals(0, outboxPoller.poll());
+        OutboxEvent event = outboxEventRepository.findAll().get(0);
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getLastError().startsWith("Not delivered within"));
+
+        event.setAvailableAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+
+        assertEquals(0, outboxPoller.poll());
+        assertTrue(outboxEventRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void otpEmailsAreWrittenToTheOutboxWithoutTheCode() {
+        User user = userRepository.save(new User(null, "Outbox", "outbox@coin-keeper.dev", "password", null,
+                LocalDateTime.now(), true, null, null));
+        GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+        try {
+            authenticationService.verifyEmailAndSendOTP(new ForgetPasswordRequestDTO(user.getEmail()));
+            String otp = otpStore.find(user.getId()).orElseThrow().otp().toString();
+
+            List<OutboxEvent> events = outboxEventRepository.findAll();
+            assertEquals(1, events.size());
+            assertEquals("OtpIssuedEvent", events.get(0).getType());
+            assertFalse(events.get(0).getPayload().contains(otp));
+            assertFalse(events.get(0).getPayload().contains(user.getEmail()));
+
+            // The poller only returns once the SMTP server has accepted the email
+            assertEquals(1, outboxPoller.poll());
+            assertEquals(1, greenMail.getReceivedMessages().length);
+            assertTrue(GreenMailUtil.getBody(greenMail.getReceivedMessages()[0]).contains(otp));
+            assertTrue(outboxEventRepository.findAll().isEmpty());
+        } finally {
+            greenMail.stop();
+            otpStore.delete(user.getId());
+            userRepository.deleteById(user.getId());
+        }
+    }
+}
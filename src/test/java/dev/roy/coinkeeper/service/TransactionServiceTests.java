@@ -0,0 +1,334 @@
+package dev.roy.coinkeeper.service;
+
+import dev.roy.coinkeeper.dto.BucketGranularity;
+import dev.roy.coinkeeper.dto.BulkImportRowResult;
+import dev.roy.coinkeeper.dto.CategorySpend;
+import dev.roy.coinkeeper.dto.CursorPage;
+import dev.roy.coinkeeper.dto.ExportFormat;
+import dev.roy.coinkeeper.dto.ImportStatus;
+import dev.roy.coinkeeper.dto.SpendingBucket;
+import dev.roy.coinkeeper.dto.LedgerReconciliationReport;
+import dev.roy.coinkeeper.dto.TransactionRequestDTO;
+import dev.roy.coinkeeper.dto.TransactionResponseDTO;
+import dev.roy.coinkeeper.entity.Budget;
+import dev.roy.coinkeeper.entity.Transaction;
+import dev.roy.coinkeeper.entity.TransactionType;
+import dev.roy.coinkeeper.entity.User;
+import dev.roy.coinkeeper.exception.ImportTooLargeException;
+import dev.roy.coinkeeper.exception.InvalidPeriodException;
+import dev.roy.coinkeeper.repository.BudgetRepository;
+import dev.roy.coinkeeper.repository.MonthlyRollupRepository;
+import dev.roy.coinkeeper.repository.TransactionRepository;
+import dev.roy.coinkeeper.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class TransactionServiceTests {
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private BudgetRepository budgetRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+    @Autowired
+    private TransactionExportService exportService;
+    @Autowired
+    private SpendingRollupService rollupService;
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    private Statistics statistics;
+    private User user;
+    private Budget budget;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User(null, "Tester", "tester@coin-keeper.dev", "password",
+                null, LocalDateTime.now(), true, null, null));
+        budget = budgetRepository.save(new Budget(null, "Household", null, LocalDateTime.now(), null,
+                null, user, new ArrayList<>()));
+    }
+
+    @Test
+    void totalsAreAggregatedWithoutLoadingTransactions() {
+        postTransactions(10);
+        long rowsForSmallBudget = rowsLoadedFor(() -> transactionService.getTotalIncomeAndExpenseByBudget(budget.getId()));
+
+        postTransactions(500);
+        long rowsForLargeBudget = rowsLoadedFor(() -> transactionService.getTotalIncomeAndExpenseByBudget(budget.getId()));
+
+        assertEquals(rowsForSmallBudget, rowsForLargeBudget);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void totalsMatchTheSumOfTransactions() {
+        postTransactions(20);
+
+        Map<String, Float> byBudget = transactionService.getTotalIncomeAndExpenseByBudget(budget.getId());
+        Map<String, Float> byUser = transactionService.getTotalIncomeAndExpenseByUser(user.getId());
+
+        assertEquals(100F, byBudget.get("income"));
+        assertEquals(20F, byBudget.get("expense"));
+        assertEquals(byBudget, byUser);
+    }
+
+    @Test
+    void ledgerFollowsUpdatesAndDeletes() {
+        TransactionResponseDTO credit = transactionService.addTransaction(request("CREDIT", 40F));
+        TransactionResponseDTO debit = transactionService.addTransaction(request("DEBIT", 15F));
+
+        transactionService.updateTransactionById(credit.id(), new TransactionRequestDTO("DEBIT", 25F,
+                null, null, null, null, null, budget.getId(), user.getId()));
+        transactionService.deleteTransactionById(debit.id());
+
+        Map<String, Float> totals = transactionService.getTotalIncomeAndExpenseByBudget(budget.getId());
+        assertEquals(0F, totals.get("income"));
+        assertEquals(25F, totals.get("expense"));
+    }
+
+    @Test
+    void reconciliationRebuildsDriftedLedger() {
+        // Inserted behind the service's back, so the ledger knows nothing about them
+        addTransactions(10);
+
+        LedgerReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(2, report.drifts().size());
+        Map<String, Float> totals = transactionService.getTotalIncomeAndExpenseByBudget(budget.getId());
+        assertEquals(50F, totals.get("income"));
+        assertEquals(10F, totals.get("expense"));
+        assertTrue(reconciliationService.reconcile().drifts().isEmpty());
+    }
+
+    @Test
+    void keysetScrollingVisitsEveryTransactionOnce() {
+        postTransactions(7);
+
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<TransactionResponseDTO> page = transactionService.scrollTransactionsByBudget(budget.getId(), cursor, 3);
+            page.content().forEach(transaction -> seen.add(transaction.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.size());
+        assertEquals(7, seen.stream().distinct().count());
+    }
+
+    @Test
+    void exportWritesOneLinePerTransaction() throws Exception {
+        postTransactions(6);
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.exportTransactionsByBudget(budget.getId(), ExportFormat.CSV).writeTo(csv);
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        exportService.exportTransactionsByBudget(budget.getId(), ExportFormat.NDJSON).writeTo(ndjson);
+
+        // The CSV export starts with a header line
+        List<String> lines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(7, lines.size());
+        assertEquals(6, ndjson.toString(StandardCharsets.UTF_8).lines().count());
+
+        // Both formats carry the same fields, budget name included
+        List<String> header = List.of(lines.get(0).split(","));
+        int budgetName = header.indexOf("budgetName");
+        assertEquals(header.indexOf("budgetId") + 1, budgetName);
+        lines.stream().skip(1).forEach(line -> assertEquals("Household", line.split(",")[budgetName]));
+        assertTrue(ndjson.toString(StandardCharsets.UTF_8).lines()
+                .allMatch(line -> line.contains("\"budgetName\":\"Household\"")));
+    }
+
+    @Test
+    void bulkImportSkipsUndatedRowsImportedBefore() {
+        TransactionRequestDTO undated = new TransactionRequestDTO("DEBIT", 12F, null, "groceries", "Market",
+                null, null, budget.getId(), user.getId());
+
+        assertEquals(ImportStatus.IMPORTED, transactionService.importTransactions(List.of(undated)).get(0).status());
+        assertEquals(ImportStatus.DUPLICATE, transactionService.importTransactions(List.of(undated)).get(0).status());
+    }
+
+    @Test
+    void bulkImportRejectsListsOverTheRowLimit() {
+        TransactionRequestDTO row = new TransactionRequestDTO("DEBIT", 1F, null, null, null,
+                null, null, budget.getId(), user.getId());
+
+        assertThrows(ImportTooLargeException.class,
+                () -> transactionService.importTransactions(Collections.nCopies(11, row)));
+    }
+
+    @Test
+    void bulkImportReportsEveryRowAndSkipsDuplicates() {
+        LocalDateTime date = LocalDateTime.of(2024, 1, 15, 10, 0);
+        TransactionRequestDTO salary = new TransactionRequestDTO("CREDIT", 1000F, date, "salary", "January",
+                null, null, budget.getId(), user.getId());
+        TransactionRequestDTO rent = new TransactionRequestDTO("DEBIT", 400F, date, "rent", "January",
+                null, null, budget.getId(), user.getId());
+        TransactionRequestDTO invalid = new TransactionRequestDTO("DEBIT", null, date, "rent", "January",
+                null, null, budget.getId(), user.getId());
+        TransactionRequestDTO unknownBudget = new TransactionRequestDTO("DEBIT", 5F, date, null, null,
+                null, null, Integer.MAX_VALUE, user.getId());
+
+        List<BulkImportRowResult> results = transactionService.importTransactions(
+                List.of(salary, rent, salary, invalid, unknownBudget));
+
+        assertEquals(List.of(ImportStatus.IMPORTED, ImportStatus.IMPORTED, ImportStatus.DUPLICATE,
+                ImportStatus.REJECTED, ImportStatus.REJECTED), results.stream().map(BulkImportRowResult::status).toList());
+        assertTrue(transactionService.importTransactions(List.of(salary, rent)).stream()
+                .allMatch(result -> result.status() == ImportStatus.DUPLICATE));
+        Map<String, Float> totals = transactionService.getTotalIncomeAndExpenseByBudget(budget.getId());
+        assertEquals(1000F, totals.get("income"));
+        assertEquals(400F, totals.get("expense"));
+    }
+
+    @Test
+    void monthlySeriesCombinesRollupsWithLateWrites() {
+        for (int month = 1; month <= 3; month++) {
+            transactionService.addTransaction(new TransactionRequestDTO("DEBIT", 10F * month,
+                    LocalDateTime.of(2024, month, 10, 12, 0), "food", null, null, null, budget.getId(), user.getId()));
+        }
+        rollupService.rollUpClosedMonths();
+        // Written after February has been rolled up
+        transactionService.addTransaction(new TransactionRequestDTO("DEBIT", 5F,
+                LocalDateTime.of(2024, 2, 20, 12, 0), "rent", null, null, null, budget.getId(), user.getId()));
+
+        List<SpendingBucket> monthly = transactionService.getSpendingSeries(budget.getId(),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), BucketGranularity.MONTH, false);
+        List<SpendingBucket> byCategory = transactionService.getSpendingSeries(budget.getId(),
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), BucketGranularity.MONTH, true);
+        List<SpendingBucket> weekly = transactionService.getSpendingSeries(budget.getId(),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), BucketGranularity.WEEK, false);
+
+        assertEquals(List.of(10D, 25D, 30D), monthly.stream().map(SpendingBucket::total).toList());
+        assertEquals(LocalDateTime.of(2024, 2, 1, 0, 0), monthly.get(1).bucketStart());
+        assertEquals(2, byCategory.size());
+        assertEquals(4, weekly.size());
+        assertEquals(65D, weekly.stream().mapToDouble(SpendingBucket::total).sum());
+    }
+
+    @Test
+    void lateWritesToARolledUpMonthAddToASingleRollupRow() {
+        transactionService.addTransaction(new TransactionRequestDTO("DEBIT", 10F,
+                LocalDateTime.of(2024, 1, 10, 12, 0), "food", null, null, null, budget.getId(), user.getId()));
+        rollupService.rollUpClosedMonths();
+
+        for (int i = 0; i < 3; i++) {
+            transactionService.addTransaction(new TransactionRequestDTO("DEBIT", 5F,
+                    LocalDateTime.of(2024, 1, 20, 12, 0), "rent", null, null, null, budget.getId(), user.getId()));
+        }
+
+        List<SpendingBucket> january = monthlyRollupRepository.sumByMonthAndCategory(budget.getId(),
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0));
+        assertEquals(List.of(new SpendingBucket(LocalDateTime.of(2024, 1, 1, 0, 0), TransactionType.DEBIT, "food", 10D),
+                new SpendingBucket(LocalDateTime.of(2024, 1, 1, 0, 0), TransactionType.DEBIT, "rent", 15D)),
+                january.stream().sorted(Comparator.comparing(SpendingBucket::category)).toList());
+        assertEquals(2L, entityManager.createQuery("select count(r) from MonthlyRollup r where r.budgetId = :budgetId")
+                .setParameter("budgetId", budget.getId())
+                .getSingleResult());
+    }
+
+    @Test
+    void topCategoriesAreRankedBySpend() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 10, 12, 0);
+        String[] categories = {"rent", "food", "food", "fuel", null, "food"};
+        float[] amounts = {500F, 20F, 30F, 40F, 5F, 25F};
+        for (int i = 0; i < categories.length; i++) {
+            transactionService.addTransaction(new TransactionRequestDTO("DEBIT", amounts[i], date, categories[i],
+                    null, null, null, budget.getId(), user.getId()));
+        }
+        transactionService.addTransaction(new TransactionRequestDTO("CREDIT", 900F, date, "salary",
+                null, null, null, budget.getId(), user.getId()));
+
+        List<CategorySpend> exact = transactionService.getTopCategoriesByBudget(budget.getId(),
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31), 3, false);
+        List<CategorySpend> approximate = transactionService.getTopCategoriesByBudget(budget.getId(),
+                null, null, 3, true);
+        // Written after the budget sketch was seeded, the test transaction never commits so it never reaches it
+        transactionService.addTransaction(new TransactionRequestDTO("DEBIT", 100F, date, "fuel",
+                null, null, null, budget.getId(), user.getId()));
+        List<CategorySpend> uncommitted = transactionService.getTopCategoriesByBudget(budget.getId(),
+                null, null, 3, true);
+        List<CategorySpend> byUser = transactionService.getTopCategoriesByUser(user.getId(), null, null, 2, true);
+
+        assertEquals(List.of(new CategorySpend("rent", 500D), new CategorySpend("food", 75D),
+                new CategorySpend("fuel", 40D)), exact);
+        assertEquals(exact, approximate);
+        assertEquals(approximate, uncommitted);
+        assertEquals(List.of(new CategorySpend("rent", 500D), new CategorySpend("fuel", 140D)), byUser);
+        assertThrows(InvalidPeriodException.class, () -> transactionService.getTopCategoriesByBudget(budget.getId(),
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31), 3, true));
+    }
+
+    private void postTransactions(int count) {
+        for (int i = 0; i < count; i++) {
+            boolean credit = i % 2 == 0;
+            transactionService.addTransaction(request(credit ? "CREDIT" : "DEBIT", credit ? 10F : 2F));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private TransactionRequestDTO request(String type, Float amount) {
+        return new TransactionRequestDTO(type, amount, null, "misc", "item", null, null, budget.getId(), user.getId());
+    }
+
+    private void addTransactions(int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Alternate between a credit of 10 and a debit of 2
+            boolean credit = i % 2 == 0;
+            transactions.add(new Transaction(null, credit ? TransactionType.CREDIT : TransactionType.DEBIT,
+                    credit ? 10F : 2F, LocalDateTime.now().minusMinutes(i), "misc", "item " + i,
+                    null, null, null, budget, user));
+        }
+        transactionRepository.saveAll(transactions);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long rowsLoadedFor(Runnable call) {
+        statistics.clear();
+        call.run();
+        return statistics.getEntityLoadCount() + Arrays.stream(statistics.getQueries())
+                .mapToLong(query -> statistics.getQueryStatistics(query).getExecutionRowCount())
+                .sum();
+    }
+}